@@ -0,0 +1,82 @@
+package org.uacr.purepursuit;
+
+import org.uacr.purepursuit.math.Point;
+import org.uacr.purepursuit.math.Pose2d;
+import org.uacr.purepursuit.path.Path;
+import org.uacr.purepursuit.path.PathBuilder;
+import org.uacr.purepursuit.path.PathConstrains;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared fixtures for the benchmarks so every benchmark runs over the same geometry
+ */
+
+public class BenchmarkPaths {
+
+    /**
+     * Length of each line in the zig zag (inches)
+     */
+    public static final double SEGMENT_LENGTH = 30;
+
+    /**
+     * Height of each zig zag (inches)
+     */
+    public static final double SEGMENT_HEIGHT = 10;
+
+    private BenchmarkPaths() {
+
+    }
+
+    public static PathConstrains constrains() {
+        PathConstrains constrains = new PathConstrains();
+        constrains.lookaheadDistance = 15;
+        constrains.maxVelocity = 10;
+        constrains.minVelocity = 1;
+        constrains.maxAcceleration = 0.2;
+        constrains.maxDeceleration = 0.2;
+        return constrains;
+    }
+
+    /**
+     * Creates the waypoints of a zig zag with the given number of lines between them
+     *
+     * @param segments the number of lines
+     * @return the waypoints
+     */
+    public static List<Point> zigZag(int segments) {
+        List<Point> points = new ArrayList<>();
+
+        for (int p = 0; p <= segments; p++) {
+            points.add(new Point(p * SEGMENT_LENGTH, p % 2 == 0 ? 0 : SEGMENT_HEIGHT));
+        }
+
+        return points;
+    }
+
+    public static Path linePath(int segments) {
+        List<Point> points = zigZag(segments);
+
+        PathBuilder builder = PathBuilder.start(points.get(0), constrains());
+
+        for (int p = 1; p < points.size(); p++) {
+            builder.lineTo(points.get(p));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * @param segments the number of lines in the zig zag
+     * @return a pose just off the middle line of the zig zag
+     */
+    public static Pose2d midPose(int segments) {
+        List<Point> points = zigZag(segments);
+
+        Point initial = points.get(segments / 2);
+        Point terminal = points.get(segments / 2 + 1);
+
+        return new Pose2d((initial.getX() + terminal.getX()) / 2, (initial.getY() + terminal.getY()) / 2 + 2, 0);
+    }
+}
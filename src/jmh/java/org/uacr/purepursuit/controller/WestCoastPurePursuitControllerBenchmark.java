@@ -0,0 +1,62 @@
+package org.uacr.purepursuit.controller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.uacr.purepursuit.BenchmarkPaths;
+import org.uacr.purepursuit.math.Pose2d;
+
+/**
+ * Benchmarks one full control tick of the west coast controller
+ */
+
+@State(Scope.Thread)
+public class WestCoastPurePursuitControllerBenchmark {
+
+    @Param({"5", "50", "500"})
+    public int segments;
+
+    private BenchmarkController mController;
+
+    @Setup
+    public void setup() {
+        mController = new BenchmarkController(BenchmarkPaths.midPose(segments));
+        mController.followPath(BenchmarkPaths.linePath(segments));
+
+        // Move the path up to the pose so the benchmark measures the steady state tick
+        mController.updateFollower();
+    }
+
+    @Benchmark
+    public double updateFollower() {
+        mController.updateFollower();
+        return mController.mLeftVelocity + mController.mRightVelocity;
+    }
+
+    private static class BenchmarkController extends WestCoastPurePursuitController {
+
+        private final Pose2d fPose;
+
+        private double mLeftVelocity;
+        private double mRightVelocity;
+
+        private BenchmarkController(Pose2d pose) {
+            super(24);
+
+            fPose = pose;
+        }
+
+        @Override
+        public void setDriveVelocities(double leftVelocity, double rightVelocity) {
+            mLeftVelocity = leftVelocity;
+            mRightVelocity = rightVelocity;
+        }
+
+        @Override
+        public Pose2d getCurrentPose() {
+            return fPose;
+        }
+    }
+}
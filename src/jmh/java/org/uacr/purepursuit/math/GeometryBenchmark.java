@@ -0,0 +1,54 @@
+package org.uacr.purepursuit.math;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Benchmarks the geometry used every tick while searching for the lookahead point
+ */
+
+@State(Scope.Thread)
+public class GeometryBenchmark {
+
+    private Circle mCircle;
+    private Line mLine;
+    private Point mPoint;
+    private Vector mVector;
+
+    @Setup
+    public void setup() {
+        mCircle = new Circle(15, 2, 15);
+        mLine = new Line(new Point(0, 0), new Point(30, 10));
+        mPoint = new Point(15, 7);
+        mVector = new Vector(3, 4, 18, 11);
+    }
+
+    @Benchmark
+    public List<Point> circleGetIntersections() {
+        return mCircle.getIntersections(mLine);
+    }
+
+    @Benchmark
+    public Point lineClosestPoint() {
+        return mLine.closestPoint(mPoint);
+    }
+
+    @Benchmark
+    public boolean lineIsInSegment() {
+        return mLine.isInSegment(mPoint);
+    }
+
+    @Benchmark
+    public Vector vectorRotate() {
+        return mVector.rotate(30);
+    }
+
+    @Benchmark
+    public double vectorCreateMagnitude() {
+        return new Vector(mPoint).magnitude();
+    }
+}
@@ -0,0 +1,43 @@
+package org.uacr.purepursuit.path;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.uacr.purepursuit.BenchmarkPaths;
+import org.uacr.purepursuit.math.Point;
+import org.uacr.purepursuit.math.Pose2d;
+
+/**
+ * Benchmarks the per tick path queries made by the controllers
+ */
+
+@State(Scope.Thread)
+public class PathBenchmark {
+
+    @Param({"5", "50", "500"})
+    public int segments;
+
+    private PathCursor mCursor;
+    private Pose2d mPose;
+
+    @Setup
+    public void setup() {
+        mCursor = BenchmarkPaths.linePath(segments).createCursor();
+        mPose = BenchmarkPaths.midPose(segments);
+
+        // Move the cursor up to the pose so the benchmark measures the steady state tick
+        mCursor.getLookaheadPoint(mPose);
+    }
+
+    @Benchmark
+    public Point getLookaheadPoint() {
+        return mCursor.getLookaheadPoint(mPose);
+    }
+
+    @Benchmark
+    public double getVelocity() {
+        return mCursor.getVelocity(mPose);
+    }
+}
@@ -0,0 +1,36 @@
+package org.uacr.purepursuit.path.segment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.uacr.purepursuit.BenchmarkPaths;
+import org.uacr.purepursuit.math.Point;
+
+import java.util.List;
+
+/**
+ * Benchmarks filling and smoothing the waypoints of a point segment
+ */
+
+@State(Scope.Thread)
+public class PointSegmentBenchmark {
+
+    @Param({"5", "50", "500"})
+    public int segments;
+
+    private List<Point> mWaypoints;
+
+    @Setup
+    public void setup() {
+        mWaypoints = BenchmarkPaths.zigZag(segments);
+    }
+
+    @Benchmark
+    public PointSegment build() {
+        PointSegment segment = new PointSegment(mWaypoints);
+        segment.build();
+        return segment;
+    }
+}
@@ -0,0 +1,45 @@
+package org.uacr.purepursuit.path.velocity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.uacr.purepursuit.BenchmarkPaths;
+import org.uacr.purepursuit.path.Path;
+import org.uacr.purepursuit.path.PathConstrains;
+
+/**
+ * Benchmarks s-curve velocity lookups, sweeping the distance forward along the path like a robot following it would
+ */
+
+@State(Scope.Thread)
+public class SCurveVelocityProfileBenchmark {
+
+    private static final int STEPS = 1000;
+
+    @Param({"5", "50", "500"})
+    public int segments;
+
+    private SCurveVelocityProfile mProfile;
+    private double mLength;
+    private int mStep;
+
+    @Setup
+    public void setup() {
+        Path path = BenchmarkPaths.linePath(segments);
+
+        mLength = path.length();
+        PathConstrains constrains = BenchmarkPaths.constrains();
+        constrains.maxJerk = 0.01;
+
+        mProfile = new SCurveVelocityProfile(constrains, mLength, path.getSpeedReductions());
+        mStep = 0;
+    }
+
+    @Benchmark
+    public double getVelocity() {
+        mStep = (mStep + 1) % STEPS;
+        return mProfile.getVelocity(mLength * mStep / STEPS);
+    }
+}
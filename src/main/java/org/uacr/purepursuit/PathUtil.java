@@ -36,6 +36,27 @@ public class PathUtil {
         return Math.min(Math.max(value, min), max);
     }
 
+    /**
+     * A stable 64 bit FNV-1a hash of the bits of the values, the same values always give the same fingerprint
+     *
+     * @param values the values to hash
+     * @return the fingerprint
+     */
+    public static long fingerprint(double[] values) {
+        long hash = 0xcbf29ce484222325L;
+
+        for (double value : values) {
+            long bits = Double.doubleToLongBits(value);
+
+            for (int b = 0; b < 64; b += 8) {
+                hash ^= (bits >>> b) & 0xFF;
+                hash *= 0x100000001b3L;
+            }
+        }
+
+        return hash;
+    }
+
     public static double interpolate(double input, double minInput, double maxInput, double minOutput, double maxOutput) {
         return minOutput + ((maxOutput - minOutput) * ((limit(input, minInput, maxInput) - minInput) / (maxInput - minInput)));
     }
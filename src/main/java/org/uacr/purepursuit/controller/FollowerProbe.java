@@ -0,0 +1,15 @@
+package org.uacr.purepursuit.controller;
+
+/**
+ * FollowerProbe is told when each update of a follower starts, when each of its stages finishes and when it finishes,
+ * so it can measure what each stage costs. It is called from the thread updating the follower and shouldn't block or allocate.
+ */
+
+public interface FollowerProbe {
+
+    void tickStarted();
+
+    void stageFinished(FollowerStage stage);
+
+    void tickFinished();
+}
@@ -0,0 +1,23 @@
+package org.uacr.purepursuit.controller;
+
+/**
+ * The stages of one update of a follower, in the order they run
+ */
+
+public enum FollowerStage {
+    /**
+     * Getting the robot's pose and the pose it follows the path with
+     */
+    POSE,
+    /**
+     * Moving on to the next segment of the path when the current one is done
+     */
+    SEGMENT,
+    VELOCITY,
+    LOOKAHEAD,
+    CURVATURE,
+    /**
+     * Setting the drive velocities
+     */
+    OUTPUT
+}
@@ -2,36 +2,53 @@ package org.uacr.purepursuit.controller;
 
 import org.uacr.purepursuit.math.Point;
 import org.uacr.purepursuit.math.Pose2d;
-import org.uacr.purepursuit.math.Vector;
+import org.uacr.purepursuit.odometry.PoseHistory;
 import org.uacr.purepursuit.path.Path;
-import org.uacr.utilities.logging.LogManager;
-import org.uacr.utilities.logging.Logger;
+import org.uacr.purepursuit.path.PathCursor;
+import org.uacr.purepursuit.telemetry.TelemetryRecorder;
 
 import javax.annotation.Nullable;
 
 public abstract class WestCoastPurePursuitController extends PurePursuitController {
 
-    private static final Logger sLogger = LogManager.getLogger(WestCoastPurePursuitController.class);
+    /**
+     * The fields of the telemetry recorded every tick, a recorder passed to setTelemetryRecorder must be created with them
+     */
+    public static final String[] TELEMETRY_FIELDS = {"Length", "X", "Y", "Heading", "Lookahead X", "Lookahead Y", "Velocity", "Curvature"};
 
     private final double fTrackWidth;
+    private final double[] fCompensatedPose;
 
     @Nullable
     private Path mCurrentPath;
+    @Nullable
+    private PathCursor mCursor;
     private Pose2d mCurrentPose;
     private Pose2d mFollowPose;
     private FollowDirection mFollowDirection;
     private boolean mIsFollowing;
-    private double mDeltaAngle;
+    @Nullable
+    private TelemetryRecorder mTelemetryRecorder;
+    @Nullable
+    private FollowerProbe mProbe;
+    @Nullable
+    private PoseHistory mPoseHistory;
+    private long mPoseLatencyNanos;
 
     public WestCoastPurePursuitController(double trackWidth) {
         fTrackWidth = trackWidth;
+        fCompensatedPose = new double[3];
 
         mCurrentPath = null;
+        mCursor = null;
         mCurrentPose = new Pose2d();
         mFollowPose = new Pose2d();
         mFollowDirection = FollowDirection.FORWARD;
         mIsFollowing = false;
-        mDeltaAngle = 0;
+        mTelemetryRecorder = null;
+        mProbe = null;
+        mPoseHistory = null;
+        mPoseLatencyNanos = 0;
     }
 
     public double getTrackWidth() {
@@ -40,11 +57,19 @@ public abstract class WestCoastPurePursuitController extends PurePursuitControll
 
     public void followPath(Path path) {
         mCurrentPath = path;
-        mCurrentPath.reset();
+        mCursor = path.createCursor();
         resetFollower();
         mIsFollowing = true;
     }
 
+    /**
+     * @return the progress along the path being followed, or null if no path has been followed
+     */
+    @Nullable
+    public PathCursor getCursor() {
+        return mCursor;
+    }
+
     public boolean isFollowing() {
         return mIsFollowing;
     }
@@ -61,37 +86,184 @@ public abstract class WestCoastPurePursuitController extends PurePursuitControll
         mFollowDirection = followDirection;
     }
 
+    @Nullable
+    public TelemetryRecorder getTelemetryRecorder() {
+        return mTelemetryRecorder;
+    }
+
+    /**
+     * Sets the recorder every tick is recorded to, or null to not record
+     *
+     * @param telemetryRecorder a recorder created with TELEMETRY_FIELDS
+     */
+    public void setTelemetryRecorder(@Nullable TelemetryRecorder telemetryRecorder) {
+        if (telemetryRecorder != null && telemetryRecorder.getFieldNames().length != TELEMETRY_FIELDS.length) {
+            throw new IllegalArgumentException("Telemetry recorder must be created with WestCoastPurePursuitController.TELEMETRY_FIELDS");
+        }
+
+        mTelemetryRecorder = telemetryRecorder;
+    }
+
+    @Nullable
+    public FollowerProbe getProbe() {
+        return mProbe;
+    }
+
+    /**
+     * Sets the probe told about every stage of every update, or null to not probe
+     */
+    public void setProbe(@Nullable FollowerProbe probe) {
+        mProbe = probe;
+    }
+
+    @Nullable
+    public PoseHistory getPoseHistory() {
+        return mPoseHistory;
+    }
+
+    /**
+     * Sets the history the robot's poses are kept in to compensate for their latency, or null to follow the poses as they are.
+     * With a history every pose from getCurrentPose is added at the time it was measured,
+     * and the path is followed from the pose extrapolated to the time of the update.
+     */
+    public void setPoseHistory(@Nullable PoseHistory poseHistory) {
+        mPoseHistory = poseHistory;
+    }
+
+    public long getPoseLatencyNanos() {
+        return mPoseLatencyNanos;
+    }
+
+    /**
+     * @param poseLatencyNanos how long before getCurrentPose is called the pose it returns was measured
+     */
+    public void setPoseLatencyNanos(long poseLatencyNanos) {
+        mPoseLatencyNanos = Math.max(poseLatencyNanos, 0);
+    }
+
+    /**
+     * @return the time in nanoseconds the poses are timestamped with, System.nanoTime() unless the robot keeps its own clock
+     */
+    protected long getTimeNanos() {
+        return System.nanoTime();
+    }
+
+    /**
+     * @param readTime the time getCurrentPose returned at
+     * @return the time the pose from getCurrentPose was measured at,
+     * override to use timestamps from the sensors instead of a fixed latency
+     */
+    protected long getCurrentPoseTimestamp(long readTime) {
+        return readTime - mPoseLatencyNanos;
+    }
+
     public void resetFollower() {
         mCurrentPose = new Pose2d();
         mFollowPose = new Pose2d();
+
+        // Poses from before the reset would be extrapolated across it
+        PoseHistory poseHistory = mPoseHistory;
+        if (poseHistory != null) {
+            poseHistory.clear();
+        }
     }
 
     public void updateFollower() {
-        if (mCurrentPath == null || !mIsFollowing) {
+        PathCursor cursor = mCursor;
+
+        if (cursor == null || !mIsFollowing) {
             stopDrive();
 
             return;
         }
 
+        FollowerProbe probe = mProbe;
+
+        if (probe != null) {
+            probe.tickStarted();
+        }
+
         mCurrentPose = getCurrentPose();
 
-        mFollowPose = mCurrentPose.clone();
+        PoseHistory poseHistory = mPoseHistory;
+
+        if (poseHistory != null) {
+            long readTime = getTimeNanos();
+
+            poseHistory.add(getCurrentPoseTimestamp(readTime), mCurrentPose);
+            poseHistory.getPose(readTime, fCompensatedPose);
+
+            mFollowPose = new Pose2d(fCompensatedPose[0], fCompensatedPose[1], fCompensatedPose[2]);
+        } else {
+            mFollowPose = mCurrentPose.clone();
+        }
 
         if (mFollowDirection == FollowDirection.REVERSE) {
             mFollowPose = new Pose2d(mFollowPose.getX(), mFollowPose.getY(), ((mFollowPose.getHeading() + 360) % 360) - 180);
         }
 
+        if (probe != null) {
+            probe.stageFinished(FollowerStage.POSE);
+        }
+
+        cursor.updateSegment(mFollowPose);
+
+        if (probe != null) {
+            probe.stageFinished(FollowerStage.SEGMENT);
+        }
+
         // Uses the path object to calculate curvature and velocity values
-        double velocity = mCurrentPath.getVelocity(mFollowPose);
-        Point lookaheadPoint = mCurrentPath.getLookaheadPoint(mFollowPose);
+        double velocity = cursor.getVelocity(mFollowPose);
+
+        if (probe != null) {
+            probe.stageFinished(FollowerStage.VELOCITY);
+        }
+
+        Point lookaheadPoint = cursor.getLookaheadPoint(mFollowPose);
+
+        if (probe != null) {
+            probe.stageFinished(FollowerStage.LOOKAHEAD);
+        }
+
+        double curvature = getCurvature(mFollowPose, lookaheadPoint);
 
-        sLogger.info("Length: {} - Current Pose: {} - Lookahead: {} - Velocity: {}", mCurrentPath.length(), mFollowPose, lookaheadPoint, velocity);
+        if (probe != null) {
+            probe.stageFinished(FollowerStage.CURVATURE);
+        }
 
-        updateDriveVelocities(velocity, getCurvature(mCurrentPose, lookaheadPoint));
+        updateDriveVelocities(velocity, curvature);
+
+        if (probe != null) {
+            probe.stageFinished(FollowerStage.OUTPUT);
+        }
 
-        if(mCurrentPath.isDone(mFollowPose)) {
+        recordTelemetry(lookaheadPoint, velocity, curvature);
+
+        if(cursor.isDone(mFollowPose)) {
             mIsFollowing = false;
         }
+
+        if (probe != null) {
+            probe.tickFinished();
+        }
+    }
+
+    private void recordTelemetry(Point lookaheadPoint, double velocity, double curvature) {
+        TelemetryRecorder telemetryRecorder = mTelemetryRecorder;
+
+        if (telemetryRecorder == null || mCurrentPath == null || !telemetryRecorder.beginRecord(System.nanoTime())) {
+            return;
+        }
+
+        telemetryRecorder.set(0, mCurrentPath.length());
+        telemetryRecorder.set(1, mFollowPose.getX());
+        telemetryRecorder.set(2, mFollowPose.getY());
+        telemetryRecorder.set(3, mFollowPose.getHeading());
+        telemetryRecorder.set(4, lookaheadPoint.getX());
+        telemetryRecorder.set(5, lookaheadPoint.getY());
+        telemetryRecorder.set(6, velocity);
+        telemetryRecorder.set(7, curvature);
+        telemetryRecorder.commitRecord();
     }
 
     protected void updateDriveVelocities(double velocity, double curvature) {
@@ -104,20 +276,38 @@ public abstract class WestCoastPurePursuitController extends PurePursuitControll
         }
     }
 
+    /**
+     * Calculates the curvature of the arc from the robot to the lookahead point, positive when the arc turns right.
+     * The lookahead point is moved into the robot's frame with one sine and cosine of the heading,
+     * where the curvature is 2 * y / L^2 with y the distance of the point to the left of the robot and L the distance to the point.
+     * Points behind the robot give the sharpest turn towards them the lookahead distance allows.
+     * Uses StrictMath so the same inputs give the same curvature on every platform.
+     *
+     * @param currentPosition the pose of the robot, facing the direction it is following the path in
+     * @param point           the lookahead point
+     * @return the curvature
+     */
     protected double getCurvature(Pose2d currentPosition, Point point) {
-        Vector delta = new Vector(point.subtract(currentPosition));
-
-        double angle = Math.toDegrees(Math.atan2(delta.getY(), Math.abs(delta.getX()) > 0.3 ? delta.getX() : 0.3 * Math.signum(delta.getX())));
+        double heading = Math.toRadians(currentPosition.getHeading());
+        double sin = StrictMath.sin(heading);
+        double cos = StrictMath.cos(heading);
 
-        mDeltaAngle = currentPosition.getHeading() - angle;
+        double deltaX = point.getX() - currentPosition.getX();
+        double deltaY = point.getY() - currentPosition.getY();
 
-        if (Math.abs(mDeltaAngle) > 180) mDeltaAngle = -Math.signum(mDeltaAngle) * (360 - Math.abs(mDeltaAngle));
+        double forward = deltaX * cos + deltaY * sin;
+        double left = deltaY * cos - deltaX * sin;
+        double distanceSquared = deltaX * deltaX + deltaY * deltaY;
 
-        double curvature = (Math.abs(mDeltaAngle) > 90 ? Math.signum(mDeltaAngle) : Math.sin(Math.toRadians(mDeltaAngle))) / (delta.magnitude() / 2);
+        if (!(distanceSquared > 0) || Double.isInfinite(distanceSquared)) {
+            return 0.0;
+        }
 
-        if (Double.isInfinite(curvature) || Double.isNaN(curvature)) return 0.0;
+        if (forward < 0) {
+            return (left > 0 ? -2 : 2) / Math.sqrt(distanceSquared);
+        }
 
-        return curvature;
+        return -2 * left / distanceSquared;
     }
 
     public void stopDrive() {
@@ -0,0 +1,218 @@
+package org.uacr.purepursuit.diagnostics;
+
+import org.uacr.purepursuit.controller.FollowerProbe;
+import org.uacr.purepursuit.controller.FollowerStage;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * AllocationProbe measures the bytes allocated by every update of a follower and by each of its stages,
+ * using the allocation counter HotSpot keeps for every thread. The bytes allocated by reading the counter itself are subtracted.
+ *
+ * The counters are written by the thread updating the follower, they can be read from another thread
+ * but a tick that is running may be half counted.
+ */
+
+public class AllocationProbe implements FollowerProbe {
+
+    private static final FollowerStage[] STAGES = FollowerStage.values();
+
+    private final com.sun.management.ThreadMXBean fThreadBean;
+    private final long fBudgetBytes;
+
+    /**
+     * The bytes allocated by one read of the allocation counter
+     */
+    private final long fMeasurementBytes;
+
+    private final long[] fLastStageBytes;
+    private final long[] fMaxStageBytes;
+    private final long[] fTotalStageBytes;
+
+    private long mThreadId;
+    private long mTickStartBytes;
+    private long mStageStartBytes;
+
+    private long mTicks;
+    private long mLastTickBytes;
+    private long mMaxTickBytes;
+    private long mTotalBytes;
+    private long mOverBudgetTicks;
+
+    /**
+     * @param budgetBytes the most bytes one tick should allocate, ticks over it are counted
+     * @throws UnsupportedOperationException if the JVM doesn't count the bytes each thread allocates
+     */
+    public AllocationProbe(long budgetBytes) {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean) ||
+                !((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()) {
+            throw new UnsupportedOperationException("This JVM doesn't measure thread allocation");
+        }
+
+        fThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+        fThreadBean.setThreadAllocatedMemoryEnabled(true);
+
+        fBudgetBytes = budgetBytes;
+        fMeasurementBytes = measureOverhead();
+
+        fLastStageBytes = new long[STAGES.length];
+        fMaxStageBytes = new long[STAGES.length];
+        fTotalStageBytes = new long[STAGES.length];
+
+        reset();
+    }
+
+    public AllocationProbe() {
+        this(Long.MAX_VALUE);
+    }
+
+    /**
+     * @return the smallest difference between two reads of the counter in a row
+     */
+    private long measureOverhead() {
+        long threadId = Thread.currentThread().getId();
+        long overhead = Long.MAX_VALUE;
+
+        for (int i = 0; i < 1000; i++) {
+            long start = fThreadBean.getThreadAllocatedBytes(threadId);
+            overhead = Math.min(overhead, fThreadBean.getThreadAllocatedBytes(threadId) - start);
+        }
+
+        return Math.max(overhead, 0);
+    }
+
+    public void reset() {
+        for (int s = 0; s < STAGES.length; s++) {
+            fLastStageBytes[s] = 0;
+            fMaxStageBytes[s] = 0;
+            fTotalStageBytes[s] = 0;
+        }
+
+        mTicks = 0;
+        mLastTickBytes = 0;
+        mMaxTickBytes = 0;
+        mTotalBytes = 0;
+        mOverBudgetTicks = 0;
+    }
+
+    private long read() {
+        return fThreadBean.getThreadAllocatedBytes(mThreadId);
+    }
+
+    @Override
+    public void tickStarted() {
+        mThreadId = Thread.currentThread().getId();
+        mTickStartBytes = read();
+        mStageStartBytes = mTickStartBytes;
+    }
+
+    @Override
+    public void stageFinished(FollowerStage stage) {
+        long bytes = read();
+        long stageBytes = Math.max(bytes - mStageStartBytes - fMeasurementBytes, 0);
+        int s = stage.ordinal();
+
+        fLastStageBytes[s] = stageBytes;
+        fMaxStageBytes[s] = Math.max(fMaxStageBytes[s], stageBytes);
+        fTotalStageBytes[s] += stageBytes;
+
+        // Starts the next stage after this read so its own allocation isn't counted twice
+        mStageStartBytes = read();
+    }
+
+    @Override
+    public void tickFinished() {
+        long bytes = read();
+
+        // Every stage read the counter twice, and the tick reads it once more at each end
+        long reads = 2 * (long) STAGES.length + 1;
+        long tickBytes = Math.max(bytes - mTickStartBytes - reads * fMeasurementBytes, 0);
+
+        mTicks++;
+        mLastTickBytes = tickBytes;
+        mMaxTickBytes = Math.max(mMaxTickBytes, tickBytes);
+        mTotalBytes += tickBytes;
+
+        if (tickBytes > fBudgetBytes) {
+            mOverBudgetTicks++;
+        }
+    }
+
+    public long getBudgetBytes() {
+        return fBudgetBytes;
+    }
+
+    /**
+     * @return the bytes allocated by one read of the allocation counter, which are left out of every measurement
+     */
+    public long getMeasurementBytes() {
+        return fMeasurementBytes;
+    }
+
+    public long getTicks() {
+        return mTicks;
+    }
+
+    public long getLastTickBytes() {
+        return mLastTickBytes;
+    }
+
+    public long getMaxTickBytes() {
+        return mMaxTickBytes;
+    }
+
+    public long getTotalBytes() {
+        return mTotalBytes;
+    }
+
+    public double getAverageTickBytes() {
+        return mTicks > 0 ? (double) mTotalBytes / mTicks : 0;
+    }
+
+    /**
+     * @return the number of ticks that allocated more than the budget
+     */
+    public long getOverBudgetTicks() {
+        return mOverBudgetTicks;
+    }
+
+    public boolean isWithinBudget() {
+        return mOverBudgetTicks == 0;
+    }
+
+    public long getLastStageBytes(FollowerStage stage) {
+        return fLastStageBytes[stage.ordinal()];
+    }
+
+    public long getMaxStageBytes(FollowerStage stage) {
+        return fMaxStageBytes[stage.ordinal()];
+    }
+
+    public long getTotalStageBytes(FollowerStage stage) {
+        return fTotalStageBytes[stage.ordinal()];
+    }
+
+    public double getAverageStageBytes(FollowerStage stage) {
+        return mTicks > 0 ? (double) fTotalStageBytes[stage.ordinal()] / mTicks : 0;
+    }
+
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+
+        builder.append("Ticks: ").append(mTicks)
+                .append(" Average Bytes: ").append(String.format("%.1f", getAverageTickBytes()))
+                .append(" Max Bytes: ").append(mMaxTickBytes)
+                .append(" Over Budget: ").append(mOverBudgetTicks);
+
+        for (FollowerStage stage : STAGES) {
+            builder.append(" ").append(stage).append(": ")
+                    .append(String.format("%.1f", getAverageStageBytes(stage)))
+                    .append("/").append(getMaxStageBytes(stage));
+        }
+
+        return builder.toString();
+    }
+}
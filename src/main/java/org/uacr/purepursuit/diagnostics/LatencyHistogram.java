@@ -0,0 +1,125 @@
+package org.uacr.purepursuit.diagnostics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyHistogram counts durations in log linear buckets, every power of two is split into 16 equal buckets,
+ * so a duration is known to within 1/16 of its value no matter how long it is.
+ * All the buckets are allocated up front and recording is a few array operations with no locks or allocation.
+ *
+ * There must only be one thread recording, any thread can take a {@link #snapshot()} while it records.
+ */
+
+public class LatencyHistogram {
+
+    /**
+     * Number of bits of each duration kept below its highest bit
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray fCounts;
+    private final AtomicLong fMax;
+
+    public LatencyHistogram() {
+        fCounts = new AtomicLongArray(BUCKETS);
+        fMax = new AtomicLong();
+    }
+
+    /**
+     * Records a duration, called from the recording thread
+     *
+     * @param nanos the duration, negative durations are recorded as zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        int bucket = bucketOf(value);
+
+        fCounts.lazySet(bucket, fCounts.get(bucket) + 1);
+
+        if (value > fMax.get()) {
+            fMax.lazySet(value);
+        }
+    }
+
+    /**
+     * Clears every count, durations recorded while clearing may be kept or lost
+     */
+    public void reset() {
+        for (int b = 0; b < BUCKETS; b++) {
+            fCounts.lazySet(b, 0);
+        }
+
+        fMax.lazySet(0);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return the largest duration that falls in the bucket
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        long lowest = (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+
+        return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * Copies the counts and calculates the percentiles, allocates so should be called away from the recording thread
+     *
+     * @return the snapshot
+     */
+    public LatencySnapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+
+        for (int b = 0; b < BUCKETS; b++) {
+            counts[b] = fCounts.get(b);
+            count += counts[b];
+        }
+
+        long max = fMax.get();
+
+        return new LatencySnapshot(count, percentile(counts, count, 0.5, max), percentile(counts, count, 0.99, max),
+                percentile(counts, count, 0.999, max), max);
+    }
+
+    /**
+     * @return the highest duration in the bucket the percentile falls in, never more than the max
+     */
+    private static long percentile(long[] counts, long count, double percentile, long max) {
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(percentile * count);
+        long seen = 0;
+
+        for (int b = 0; b < counts.length; b++) {
+            seen += counts[b];
+
+            if (seen >= rank) {
+                return Math.min(highestValueOf(b), max);
+            }
+        }
+
+        return max;
+    }
+}
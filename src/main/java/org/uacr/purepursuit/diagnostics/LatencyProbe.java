@@ -0,0 +1,87 @@
+package org.uacr.purepursuit.diagnostics;
+
+import org.uacr.purepursuit.controller.FollowerProbe;
+import org.uacr.purepursuit.controller.FollowerStage;
+
+/**
+ * LatencyProbe times every update of a follower and each of its stages into a {@link LatencyHistogram}.
+ * Recording doesn't lock or allocate, so it can be left attached to a follower on the robot,
+ * and snapshots can be taken from any thread.
+ */
+
+public class LatencyProbe implements FollowerProbe {
+
+    private static final FollowerStage[] STAGES = FollowerStage.values();
+
+    private final LatencyHistogram[] fStageHistograms;
+    private final LatencyHistogram fTickHistogram;
+
+    private long mTickStartTime;
+    private long mStageStartTime;
+
+    public LatencyProbe() {
+        fStageHistograms = new LatencyHistogram[STAGES.length];
+
+        for (int s = 0; s < STAGES.length; s++) {
+            fStageHistograms[s] = new LatencyHistogram();
+        }
+
+        fTickHistogram = new LatencyHistogram();
+    }
+
+    @Override
+    public void tickStarted() {
+        mTickStartTime = System.nanoTime();
+        mStageStartTime = mTickStartTime;
+    }
+
+    @Override
+    public void stageFinished(FollowerStage stage) {
+        long time = System.nanoTime();
+
+        fStageHistograms[stage.ordinal()].record(time - mStageStartTime);
+        mStageStartTime = time;
+    }
+
+    @Override
+    public void tickFinished() {
+        fTickHistogram.record(System.nanoTime() - mTickStartTime);
+    }
+
+    public LatencyHistogram getHistogram(FollowerStage stage) {
+        return fStageHistograms[stage.ordinal()];
+    }
+
+    public LatencyHistogram getTickHistogram() {
+        return fTickHistogram;
+    }
+
+    public LatencySnapshot getSnapshot(FollowerStage stage) {
+        return getHistogram(stage).snapshot();
+    }
+
+    /**
+     * @return the latency of whole updates, including what happens between the stages
+     */
+    public LatencySnapshot getTickSnapshot() {
+        return fTickHistogram.snapshot();
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : fStageHistograms) {
+            histogram.reset();
+        }
+
+        fTickHistogram.reset();
+    }
+
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Tick: ").append(getTickSnapshot());
+
+        for (FollowerStage stage : STAGES) {
+            builder.append("\n").append(stage).append(": ").append(getSnapshot(stage));
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,54 @@
+package org.uacr.purepursuit.diagnostics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The percentiles of a {@link LatencyHistogram} at one point in time, in nanoseconds.
+ * Percentiles are the top of the bucket they fall in, so they are at most 1/16 higher than the real duration.
+ */
+
+public class LatencySnapshot {
+
+    private final long fCount;
+    private final long fP50;
+    private final long fP99;
+    private final long fP999;
+    private final long fMax;
+
+    public LatencySnapshot(long count, long p50, long p99, long p999, long max) {
+        fCount = count;
+        fP50 = p50;
+        fP99 = p99;
+        fP999 = p999;
+        fMax = max;
+    }
+
+    public long getCount() {
+        return fCount;
+    }
+
+    public long getP50() {
+        return fP50;
+    }
+
+    public long getP99() {
+        return fP99;
+    }
+
+    public long getP999() {
+        return fP999;
+    }
+
+    public long getMax() {
+        return fMax;
+    }
+
+    public String toString() {
+        return "Count: " + fCount + " p50: " + format(fP50) + " p99: " + format(fP99) +
+                " p999: " + format(fP999) + " Max: " + format(fMax);
+    }
+
+    private static String format(long nanos) {
+        return nanos < TimeUnit.MICROSECONDS.toNanos(10) ? nanos + "ns" : String.format("%.1fus", nanos / 1e3);
+    }
+}
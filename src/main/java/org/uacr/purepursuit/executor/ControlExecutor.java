@@ -0,0 +1,379 @@
+package org.uacr.purepursuit.executor;
+
+import org.uacr.purepursuit.controller.PurePursuitController;
+import org.uacr.purepursuit.diagnostics.LatencyHistogram;
+import org.uacr.purepursuit.diagnostics.LatencySnapshot;
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ControlExecutor updates controllers at a fixed period on its own high priority thread.
+ * Every tick has an absolute deadline, a whole number of periods after the executor started,
+ * so the time taken by the controllers and late wake ups don't make the ticks drift the way a sleep between ticks does.
+ *
+ * The executor measures the jitter of every tick, how long after its deadline it started, and how long the controllers took.
+ * A tick that is still running at the next tick's deadline is an overrun and is handled by the {@link OverrunPolicy},
+ * the missed ticks run to catch up are late because of the overrun and aren't overruns themselves unless they take longer than a period.
+ * Controllers can be added and removed while it runs, each tick updates the controllers that were added when it started.
+ */
+
+public class ControlExecutor implements AutoCloseable {
+
+    private static final Logger sLogger = LogManager.getLogger(ControlExecutor.class);
+
+    private static final PurePursuitController[] NO_CONTROLLERS = new PurePursuitController[0];
+
+    private final long fPeriodNanos;
+
+    private final LatencyHistogram fJitterHistogram;
+    private final LatencyHistogram fTickTimeHistogram;
+
+    /**
+     * Counters only written by the executor thread
+     */
+    private final AtomicLong fTicks;
+    private final AtomicLong fOverruns;
+    private final AtomicLong fSkippedTicks;
+    private final AtomicLong fFailures;
+
+    /**
+     * Replaced instead of changed when controllers are added or removed, so ticks never lock or allocate to read it
+     */
+    private volatile PurePursuitController[] mControllers;
+
+    private volatile OverrunPolicy mOverrunPolicy;
+    private volatile int mMaxCatchUpTicks;
+    private volatile int mMaxDegradeFactor;
+    private volatile int mRecoveryTicks;
+    private volatile long mSpinNanos;
+    private volatile long mCurrentPeriodNanos;
+    private volatile boolean mIsRunning;
+
+    @Nullable
+    private Thread mThread;
+
+    /**
+     * @param period the time between ticks
+     * @param unit   the unit of the period
+     */
+    public ControlExecutor(long period, TimeUnit unit) {
+        fPeriodNanos = unit.toNanos(period);
+
+        if (fPeriodNanos <= 0) {
+            throw new IllegalArgumentException("Control period must be positive, was " + fPeriodNanos + " ns");
+        }
+
+        fJitterHistogram = new LatencyHistogram();
+        fTickTimeHistogram = new LatencyHistogram();
+
+        fTicks = new AtomicLong();
+        fOverruns = new AtomicLong();
+        fSkippedTicks = new AtomicLong();
+        fFailures = new AtomicLong();
+
+        mControllers = NO_CONTROLLERS;
+
+        mOverrunPolicy = OverrunPolicy.SKIP;
+        mMaxCatchUpTicks = 5;
+        mMaxDegradeFactor = 4;
+        mRecoveryTicks = 50;
+        mSpinNanos = 0;
+        mCurrentPeriodNanos = fPeriodNanos;
+        mIsRunning = false;
+        mThread = null;
+    }
+
+    public synchronized void addController(PurePursuitController controller) {
+        PurePursuitController[] controllers = Arrays.copyOf(mControllers, mControllers.length + 1);
+        controllers[controllers.length - 1] = controller;
+        mControllers = controllers;
+    }
+
+    /**
+     * @return whether the controller was being updated by the executor
+     */
+    public synchronized boolean removeController(PurePursuitController controller) {
+        PurePursuitController[] controllers = mControllers;
+
+        for (int c = 0; c < controllers.length; c++) {
+            if (controllers[c] == controller) {
+                PurePursuitController[] remaining = new PurePursuitController[controllers.length - 1];
+                System.arraycopy(controllers, 0, remaining, 0, c);
+                System.arraycopy(controllers, c + 1, remaining, c, remaining.length - c);
+                mControllers = remaining;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public int getControllerCount() {
+        return mControllers.length;
+    }
+
+    public long getPeriodNanos() {
+        return fPeriodNanos;
+    }
+
+    /**
+     * @return the period ticks are running at, longer than the period while degraded
+     */
+    public long getCurrentPeriodNanos() {
+        return mCurrentPeriodNanos;
+    }
+
+    public OverrunPolicy getOverrunPolicy() {
+        return mOverrunPolicy;
+    }
+
+    public void setOverrunPolicy(OverrunPolicy overrunPolicy) {
+        mOverrunPolicy = overrunPolicy;
+    }
+
+    public int getMaxCatchUpTicks() {
+        return mMaxCatchUpTicks;
+    }
+
+    /**
+     * @param maxCatchUpTicks the most missed ticks run back to back when catching up
+     */
+    public void setMaxCatchUpTicks(int maxCatchUpTicks) {
+        mMaxCatchUpTicks = Math.max(maxCatchUpTicks, 1);
+    }
+
+    public int getMaxDegradeFactor() {
+        return mMaxDegradeFactor;
+    }
+
+    /**
+     * @param maxDegradeFactor the most times longer than the period the period can be degraded to
+     */
+    public void setMaxDegradeFactor(int maxDegradeFactor) {
+        mMaxDegradeFactor = Math.max(maxDegradeFactor, 1);
+    }
+
+    public int getRecoveryTicks() {
+        return mRecoveryTicks;
+    }
+
+    /**
+     * @param recoveryTicks the number of ticks in a row that have to finish on time before a degraded period is halved
+     */
+    public void setRecoveryTicks(int recoveryTicks) {
+        mRecoveryTicks = Math.max(recoveryTicks, 1);
+    }
+
+    public long getSpinNanos() {
+        return mSpinNanos;
+    }
+
+    /**
+     * Parking can wake up tens of microseconds late, spinning for the end of the wait trades a core for lower jitter
+     *
+     * @param spinNanos how long before each deadline the executor stops parking and spins instead
+     */
+    public void setSpinNanos(long spinNanos) {
+        mSpinNanos = Math.max(spinNanos, 0);
+    }
+
+    public boolean isRunning() {
+        return mIsRunning;
+    }
+
+    /**
+     * Starts the executor thread, the first tick runs straight away
+     */
+    public synchronized void start() {
+        if (mIsRunning) {
+            return;
+        }
+
+        mIsRunning = true;
+        mThread = new Thread(this::runLoop, "control-executor");
+        mThread.setDaemon(true);
+        mThread.setPriority(Thread.MAX_PRIORITY);
+        mThread.start();
+    }
+
+    /**
+     * Stops the executor thread after the tick it is running finishes
+     */
+    @Override
+    public synchronized void close() {
+        if (!mIsRunning) {
+            return;
+        }
+
+        mIsRunning = false;
+
+        if (mThread != null) {
+            LockSupport.unpark(mThread);
+            try {
+                mThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            mThread = null;
+        }
+    }
+
+    private void runLoop() {
+        long period = fPeriodNanos;
+        long deadline = System.nanoTime();
+        int onTimeTicks = 0;
+        boolean isCatchingUp = false;
+
+        while (mIsRunning) {
+            waitUntil(deadline);
+
+            if (!mIsRunning) {
+                break;
+            }
+
+            long startTime = System.nanoTime();
+            fJitterHistogram.record(startTime - deadline);
+
+            runControllers();
+
+            long endTime = System.nanoTime();
+            fTickTimeHistogram.record(endTime - startTime);
+            increment(fTicks, 1);
+
+            deadline += period;
+
+            if (endTime - deadline > 0) {
+                if (!isCatchingUp || endTime - startTime > period) {
+                    increment(fOverruns, 1);
+                }
+                onTimeTicks = 0;
+                isCatchingUp = false;
+
+                // The number of ticks whose deadlines have passed, including the next one
+                long missedTicks = (endTime - deadline) / period + 1;
+
+                switch (mOverrunPolicy) {
+                    case SKIP:
+                        deadline += missedTicks * period;
+                        increment(fSkippedTicks, missedTicks);
+                        break;
+                    case CATCH_UP:
+                        if (missedTicks > mMaxCatchUpTicks) {
+                            deadline += (missedTicks - mMaxCatchUpTicks) * period;
+                            increment(fSkippedTicks, missedTicks - mMaxCatchUpTicks);
+                        }
+                        isCatchingUp = true;
+                        break;
+                    case DEGRADE:
+                        period = Math.min(period * 2, fPeriodNanos * mMaxDegradeFactor);
+                        deadline = endTime + period;
+                        mCurrentPeriodNanos = period;
+                        break;
+                }
+            } else {
+                isCatchingUp = false;
+
+                if (period != fPeriodNanos && ++onTimeTicks >= mRecoveryTicks) {
+                    period = Math.max(period / 2, fPeriodNanos);
+                    onTimeTicks = 0;
+                    mCurrentPeriodNanos = period;
+                }
+            }
+        }
+    }
+
+    private void waitUntil(long deadline) {
+        long remaining;
+
+        while (mIsRunning && (remaining = deadline - System.nanoTime()) > 0) {
+            long spinNanos = mSpinNanos;
+
+            if (remaining > spinNanos) {
+                LockSupport.parkNanos(this, remaining - spinNanos);
+            }
+        }
+    }
+
+    /**
+     * Updates every controller, one controller throwing doesn't stop the others from being updated
+     */
+    private void runControllers() {
+        for (PurePursuitController controller : mControllers) {
+            try {
+                controller.updateFollower();
+            } catch (RuntimeException e) {
+                increment(fFailures, 1);
+                sLogger.error("Controller failed to update: {}", e.toString());
+            }
+        }
+    }
+
+    private static void increment(AtomicLong counter, long amount) {
+        counter.lazySet(counter.get() + amount);
+    }
+
+    /**
+     * @return the number of ticks run
+     */
+    public long getTicks() {
+        return fTicks.get();
+    }
+
+    /**
+     * Ticks run late to catch up after an overrun only count if they took longer than a period themselves,
+     * so one slow tick counts as one overrun whatever the policy
+     *
+     * @return the number of ticks still running at the next tick's deadline
+     */
+    public long getOverruns() {
+        return fOverruns.get();
+    }
+
+    /**
+     * @return the number of ticks dropped because their deadline was missed
+     */
+    public long getSkippedTicks() {
+        return fSkippedTicks.get();
+    }
+
+    /**
+     * @return the number of times a controller threw while it was updated
+     */
+    public long getFailures() {
+        return fFailures.get();
+    }
+
+    /**
+     * @return how long after their deadlines ticks started
+     */
+    public LatencySnapshot getJitter() {
+        return fJitterHistogram.snapshot();
+    }
+
+    /**
+     * @return how long the controllers took to update each tick
+     */
+    public LatencySnapshot getTickTime() {
+        return fTickTimeHistogram.snapshot();
+    }
+
+    /**
+     * Clears the jitter and tick time measurements, the counters keep counting
+     */
+    public void resetMeasurements() {
+        fJitterHistogram.reset();
+        fTickTimeHistogram.reset();
+    }
+
+    public String toString() {
+        return "Period: " + mCurrentPeriodNanos + " ns Ticks: " + getTicks() + " Overruns: " + getOverruns() +
+                " Skipped: " + getSkippedTicks() + " Failures: " + getFailures() +
+                "\nJitter: " + getJitter() + "\nTick Time: " + getTickTime();
+    }
+}
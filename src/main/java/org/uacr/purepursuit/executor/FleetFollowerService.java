@@ -0,0 +1,359 @@
+package org.uacr.purepursuit.executor;
+
+import org.uacr.purepursuit.controller.PurePursuitController;
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * FleetFollowerService updates hundreds of controllers at a fixed period without a thread per controller.
+ * The robots are split into batches and every tick each batch is handed to a small pool of workers,
+ * the ticks themselves are scheduled by a {@link ControlExecutor} so they get the same deadlines and jitter measurement.
+ *
+ * Robots are isolated from each other, a batch that is still running when the next tick starts is skipped
+ * instead of holding up the other batches, and a robot that keeps throwing is stopped (see {@link FleetRobot}).
+ * Robots can be added and removed while the service is running, a removed robot is never updated after removeRobot returns.
+ *
+ * On Java 21 or newer the workers can be virtual threads, see {@link #createVirtualThreadService(long, TimeUnit, int)}.
+ */
+
+public class FleetFollowerService implements AutoCloseable {
+
+    private static final Logger sLogger = LogManager.getLogger(FleetFollowerService.class);
+
+    private static final Batch[] NO_BATCHES = new Batch[0];
+
+    private final ControlExecutor fExecutor;
+    private final ExecutorService fWorkers;
+    private final boolean fIsOwningWorkers;
+    private final int fBatchSize;
+
+    private final List<FleetRobot> fRobots;
+
+    private final LongAdder fRobotUpdates;
+    private final AtomicLong fSkippedRobotUpdates;
+    private final AtomicLong fSkippedBatches;
+
+    /**
+     * The number of batches handed to the workers that haven't finished, including ones from batch lists that were since replaced
+     */
+    private final AtomicInteger fRunningBatches;
+
+    /**
+     * Replaced instead of changed when robots are added or removed, so ticks never lock to read it
+     */
+    private volatile Batch[] mBatches;
+
+    private volatile int mMaxConsecutiveFailures;
+
+    private volatile long mMeasurementStartTime;
+    private volatile long mMeasurementStartUpdates;
+
+    /**
+     * @param period        the time between ticks
+     * @param unit          the unit of the period
+     * @param workerThreads the number of threads updating the robots
+     * @param batchSize     the number of robots updated together by one worker
+     */
+    public FleetFollowerService(long period, TimeUnit unit, int workerThreads, int batchSize) {
+        this(period, unit, createWorkerPool(workerThreads), true, batchSize);
+    }
+
+    /**
+     * @param workers runs the batches, it isn't shut down when the service is closed
+     */
+    public FleetFollowerService(long period, TimeUnit unit, ExecutorService workers, int batchSize) {
+        this(period, unit, workers, false, batchSize);
+    }
+
+    private FleetFollowerService(long period, TimeUnit unit, ExecutorService workers, boolean isOwningWorkers, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1, was " + batchSize);
+        }
+
+        fExecutor = new ControlExecutor(period, unit);
+        fExecutor.addController(new Dispatcher());
+        fWorkers = workers;
+        fIsOwningWorkers = isOwningWorkers;
+        fBatchSize = batchSize;
+
+        fRobots = new ArrayList<>();
+
+        fRobotUpdates = new LongAdder();
+        fSkippedRobotUpdates = new AtomicLong();
+        fSkippedBatches = new AtomicLong();
+        fRunningBatches = new AtomicInteger();
+
+        mBatches = NO_BATCHES;
+        mMaxConsecutiveFailures = 3;
+
+        mMeasurementStartTime = System.nanoTime();
+        mMeasurementStartUpdates = 0;
+    }
+
+    /**
+     * Creates a service whose batches each run on a new virtual thread, only available on Java 21 or newer.
+     * Virtual threads are found by reflection so the library still runs on Java 8.
+     *
+     * @throws UnsupportedOperationException if the JVM doesn't have virtual threads
+     */
+    public static FleetFollowerService createVirtualThreadService(long period, TimeUnit unit, int batchSize) {
+        return new FleetFollowerService(period, unit, createVirtualThreadExecutor(), true, batchSize);
+    }
+
+    /**
+     * @return whether the JVM can run batches on virtual threads
+     */
+    public static boolean isVirtualThreadSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or newer, running on " + System.getProperty("java.version"));
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new UnsupportedOperationException("Failed to create a virtual thread executor", e);
+        }
+    }
+
+    private static ExecutorService createWorkerPool(int workerThreads) {
+        AtomicInteger threadCount = new AtomicInteger();
+
+        return Executors.newFixedThreadPool(Math.max(workerThreads, 1), runnable -> {
+            Thread thread = new Thread(runnable, "fleet-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Adds a robot, it is updated from the next tick on
+     *
+     * @param name       the name of the robot, used when logging its failures
+     * @param controller the robot's controller, it must not be added to the service twice
+     * @return the robot, for removing it and reading what happened to it
+     */
+    public synchronized FleetRobot addRobot(String name, PurePursuitController controller) {
+        FleetRobot robot = new FleetRobot(name, controller, mMaxConsecutiveFailures);
+
+        fRobots.add(robot);
+        createBatches();
+
+        return robot;
+    }
+
+    /**
+     * Removes a robot, waiting for its update to finish if it is being updated.
+     * Must not be called from the robot's own controller.
+     *
+     * @return whether the robot was in the service
+     */
+    public synchronized boolean removeRobot(FleetRobot robot) {
+        if (!fRobots.remove(robot)) {
+            return false;
+        }
+
+        createBatches();
+        robot.remove();
+
+        return true;
+    }
+
+    private void createBatches() {
+        Batch[] batches = new Batch[(fRobots.size() + fBatchSize - 1) / fBatchSize];
+
+        for (int b = 0; b < batches.length; b++) {
+            int start = b * fBatchSize;
+            int end = Math.min(start + fBatchSize, fRobots.size());
+
+            batches[b] = new Batch(fRobots.subList(start, end).toArray(new FleetRobot[0]));
+        }
+
+        mBatches = batches;
+    }
+
+    public synchronized List<FleetRobot> getRobots() {
+        return Collections.unmodifiableList(new ArrayList<>(fRobots));
+    }
+
+    public synchronized int getRobotCount() {
+        return fRobots.size();
+    }
+
+    public int getBatchSize() {
+        return fBatchSize;
+    }
+
+    public int getMaxConsecutiveFailures() {
+        return mMaxConsecutiveFailures;
+    }
+
+    /**
+     * @param maxConsecutiveFailures the number of updates in a row a robot can fail before it is stopped,
+     *                               applies to robots added after it is set
+     */
+    public void setMaxConsecutiveFailures(int maxConsecutiveFailures) {
+        mMaxConsecutiveFailures = Math.max(maxConsecutiveFailures, 1);
+    }
+
+    /**
+     * @return the executor scheduling the ticks, for its period, overrun policy and jitter
+     */
+    public ControlExecutor getExecutor() {
+        return fExecutor;
+    }
+
+    public void start() {
+        fExecutor.start();
+    }
+
+    /**
+     * Stops ticking and waits for the running batches to finish, then shuts down the workers if the service created them
+     */
+    @Override
+    public void close() {
+        fExecutor.close();
+
+        if (fIsOwningWorkers) {
+            fWorkers.shutdown();
+            try {
+                fWorkers.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else {
+            while (fRunningBatches.get() > 0) {
+                LockSupport.parkNanos(this, 100_000);
+            }
+        }
+    }
+
+    /**
+     * @return the number of ticks the service has run
+     */
+    public long getTicks() {
+        return fExecutor.getTicks();
+    }
+
+    /**
+     * @return the number of controller updates across every robot
+     */
+    public long getRobotUpdates() {
+        return fRobotUpdates.sum();
+    }
+
+    /**
+     * @return the number of controller updates skipped because the robot's batch was still running from an earlier tick
+     */
+    public long getSkippedRobotUpdates() {
+        return fSkippedRobotUpdates.get();
+    }
+
+    public long getSkippedBatches() {
+        return fSkippedBatches.get();
+    }
+
+    /**
+     * @return the controller updates per second across every robot since the service was created or the measurements were reset
+     */
+    public double getRobotUpdatesPerSecond() {
+        long elapsedTime = System.nanoTime() - mMeasurementStartTime;
+
+        return elapsedTime > 0 ? (getRobotUpdates() - mMeasurementStartUpdates) * 1e9 / elapsedTime : 0;
+    }
+
+    /**
+     * Restarts the updates per second measurement and clears the executor's jitter and tick time
+     */
+    public void resetMeasurements() {
+        mMeasurementStartUpdates = getRobotUpdates();
+        mMeasurementStartTime = System.nanoTime();
+        fExecutor.resetMeasurements();
+    }
+
+    public String toString() {
+        return "Robots: " + getRobotCount() + " Ticks: " + getTicks() + " Robot Updates: " + getRobotUpdates() +
+                " Skipped: " + getSkippedRobotUpdates() + " Updates Per Second: " + getRobotUpdatesPerSecond() +
+                "\n" + fExecutor;
+    }
+
+    /**
+     * Hands every batch that isn't still running to the workers, run by the executor every tick
+     */
+    private class Dispatcher extends PurePursuitController {
+
+        @Override
+        public void resetFollower() {
+
+        }
+
+        @Override
+        public void updateFollower() {
+            for (Batch batch : mBatches) {
+                if (!batch.fIsRunning.compareAndSet(false, true)) {
+                    fSkippedBatches.incrementAndGet();
+                    fSkippedRobotUpdates.addAndGet(batch.fMembers.length);
+                    continue;
+                }
+
+                fRunningBatches.incrementAndGet();
+
+                try {
+                    fWorkers.execute(batch);
+                } catch (RejectedExecutionException e) {
+                    fRunningBatches.decrementAndGet();
+                    batch.fIsRunning.set(false);
+                    sLogger.error("Fleet workers rejected a batch: {}", e.toString());
+                }
+            }
+        }
+    }
+
+    private class Batch implements Runnable {
+
+        private final FleetRobot[] fMembers;
+        private final AtomicBoolean fIsRunning;
+
+        private Batch(FleetRobot[] members) {
+            fMembers = members;
+            fIsRunning = new AtomicBoolean();
+        }
+
+        @Override
+        public void run() {
+            int updates = 0;
+
+            try {
+                for (FleetRobot robot : fMembers) {
+                    if (robot.update()) {
+                        updates++;
+                    }
+                }
+            } finally {
+                fRobotUpdates.add(updates);
+                fIsRunning.set(false);
+                fRunningBatches.decrementAndGet();
+            }
+        }
+    }
+}
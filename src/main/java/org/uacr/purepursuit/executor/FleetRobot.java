@@ -0,0 +1,164 @@
+package org.uacr.purepursuit.executor;
+
+import org.uacr.purepursuit.controller.PurePursuitController;
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * FleetRobot is one controller hosted by a {@link FleetFollowerService} and what happened to it.
+ * A robot is only ever updated by one thread at a time, an update that would overlap the one still running is skipped.
+ * A robot that throws too many times in a row is stopped so it can't take time from the rest of the fleet.
+ */
+
+public class FleetRobot {
+
+    private static final Logger sLogger = LogManager.getLogger(FleetRobot.class);
+
+    private static final int IDLE = 0;
+    private static final int UPDATING = 1;
+    private static final int REMOVED = 2;
+
+    private final String fName;
+    private final PurePursuitController fController;
+    private final int fMaxConsecutiveFailures;
+
+    private final AtomicInteger fState;
+    private final AtomicLong fSkippedUpdates;
+
+    /**
+     * Only written by the thread updating the robot
+     */
+    private volatile long mUpdates;
+    private volatile long mFailures;
+    private volatile int mConsecutiveFailures;
+    private volatile long mLastUpdateNanos;
+    private volatile long mMaxUpdateNanos;
+    private volatile boolean mIsStopped;
+
+    FleetRobot(String name, PurePursuitController controller, int maxConsecutiveFailures) {
+        fName = name;
+        fController = controller;
+        fMaxConsecutiveFailures = maxConsecutiveFailures;
+
+        fState = new AtomicInteger(IDLE);
+        fSkippedUpdates = new AtomicLong();
+
+        mUpdates = 0;
+        mFailures = 0;
+        mConsecutiveFailures = 0;
+        mLastUpdateNanos = 0;
+        mMaxUpdateNanos = 0;
+        mIsStopped = false;
+    }
+
+    public String getName() {
+        return fName;
+    }
+
+    public PurePursuitController getController() {
+        return fController;
+    }
+
+    /**
+     * Updates the controller unless the robot is stopped, removed or already being updated
+     *
+     * @return whether the controller was updated
+     */
+    boolean update() {
+        if (mIsStopped) {
+            return false;
+        }
+
+        if (!fState.compareAndSet(IDLE, UPDATING)) {
+            if (fState.get() == UPDATING) {
+                fSkippedUpdates.incrementAndGet();
+            }
+            return false;
+        }
+
+        long startTime = System.nanoTime();
+
+        try {
+            fController.updateFollower();
+            mConsecutiveFailures = 0;
+        } catch (RuntimeException e) {
+            mFailures++;
+            mConsecutiveFailures++;
+
+            if (mConsecutiveFailures >= fMaxConsecutiveFailures) {
+                mIsStopped = true;
+                sLogger.error("Stopped robot {} after {} failed updates: {}", fName, mConsecutiveFailures, e.toString());
+            } else {
+                sLogger.error("Robot {} failed to update: {}", fName, e.toString());
+            }
+        } finally {
+            long updateNanos = System.nanoTime() - startTime;
+
+            mLastUpdateNanos = updateNanos;
+            if (updateNanos > mMaxUpdateNanos) {
+                mMaxUpdateNanos = updateNanos;
+            }
+            mUpdates++;
+
+            fState.set(IDLE);
+        }
+
+        return true;
+    }
+
+    /**
+     * Marks the robot as removed, waiting for an update that is running to finish first
+     */
+    void remove() {
+        while (!fState.compareAndSet(IDLE, REMOVED)) {
+            if (fState.get() == REMOVED) {
+                return;
+            }
+
+            LockSupport.parkNanos(this, 10_000);
+        }
+    }
+
+    public boolean isRemoved() {
+        return fState.get() == REMOVED;
+    }
+
+    /**
+     * @return whether the robot was stopped for failing too many updates in a row
+     */
+    public boolean isStopped() {
+        return mIsStopped;
+    }
+
+    public long getUpdates() {
+        return mUpdates;
+    }
+
+    /**
+     * @return the number of updates skipped because the previous update was still running
+     */
+    public long getSkippedUpdates() {
+        return fSkippedUpdates.get();
+    }
+
+    public long getFailures() {
+        return mFailures;
+    }
+
+    public long getLastUpdateNanos() {
+        return mLastUpdateNanos;
+    }
+
+    public long getMaxUpdateNanos() {
+        return mMaxUpdateNanos;
+    }
+
+    public String toString() {
+        return fName + " Updates: " + mUpdates + " Skipped: " + getSkippedUpdates() + " Failures: " + mFailures +
+                " Max Update: " + mMaxUpdateNanos + " ns" + (mIsStopped ? " Stopped" : "") + (isRemoved() ? " Removed" : "");
+    }
+}
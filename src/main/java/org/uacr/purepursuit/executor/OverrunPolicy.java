@@ -0,0 +1,23 @@
+package org.uacr.purepursuit.executor;
+
+/**
+ * What a {@link ControlExecutor} does when a tick runs past the deadline of the next tick
+ */
+
+public enum OverrunPolicy {
+    /**
+     * Drops the ticks whose deadlines were missed and waits for the next deadline still ahead,
+     * so ticks stay on the original period boundaries
+     */
+    SKIP,
+    /**
+     * Runs the missed ticks back to back until the executor is back on schedule,
+     * up to the executor's catch up limit after which the rest are skipped
+     */
+    CATCH_UP,
+    /**
+     * Doubles the period, up to the executor's max degrade factor, and starts timing from the end of the late tick.
+     * The period is halved again after enough ticks in a row finish on time.
+     */
+    DEGRADE
+}
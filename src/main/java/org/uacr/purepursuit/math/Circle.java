@@ -43,36 +43,33 @@ public class Circle {
     public List<Point> getIntersections(Line line) {
         List<Point> intersections = new ArrayList<>();
 
-        Vector lineShift = new Vector(fCenter).invert();
+        MutableVector first = new MutableVector();
+        MutableVector second = new MutableVector();
 
-        Line shiftedLine = line.shift(lineShift);
+        int count = getIntersections(line.initial().getX(), line.initial().getY(), line.terminal().getX(), line.terminal().getY(), first, second);
 
-        double d = shiftedLine.initial().getX() * shiftedLine.terminal().getY() - shiftedLine.terminal().getX() * shiftedLine.initial().getY();
-        double deltaX = shiftedLine.delta().getX();
-        double deltaY = shiftedLine.delta().getY();
-        double deltaMagnitude = shiftedLine.delta().magnitude();
-        double discriminant = Math.pow(getRadius(), 2) * Math.pow(deltaMagnitude, 2) - Math.pow(d, 2);
-
-        if (discriminant < 0) {
-            return intersections;
+        if (count > 0) {
+            intersections.add(first.toPoint());
         }
 
-        double xDiscriminant = (deltaY < 0 ? -1 : 1) * deltaX * Math.sqrt(discriminant);
-        double yDiscriminant = Math.abs(deltaY) * Math.sqrt(discriminant);
-
-        intersections.add(new Point((d * deltaY + xDiscriminant) / Math.pow(deltaMagnitude, 2),
-                (-d * deltaX + yDiscriminant) / Math.pow(deltaMagnitude, 2)));
-
-        if (discriminant > 1) {
-            intersections.add(new Point((d * deltaY - xDiscriminant) / Math.pow(deltaMagnitude, 2),
-                    (-d * deltaX - yDiscriminant) / Math.pow(deltaMagnitude, 2)));
+        if (count > 1) {
+            intersections.add(second.toPoint());
         }
 
-        intersections.replaceAll(p -> p.subtract(lineShift));
-
         return intersections;
     }
 
+    /**
+     * Allocation free version of {@link #getIntersections(Line)} for the line through the given points
+     *
+     * @param first  set to the first intersection if there is one
+     * @param second set to the second intersection if there is one
+     * @return the number of intersections found
+     */
+    public int getIntersections(double initialX, double initialY, double terminalX, double terminalY, MutableVector first, MutableVector second) {
+        return VectorMath.circleLineIntersections(fCenter.getX(), fCenter.getY(), fRadius, initialX, initialY, terminalX, terminalY, first, second);
+    }
+
     public String toString() {
         return "Center: " + getCenter() + " Radius: " + getRadius();
     }
@@ -2,16 +2,34 @@ package org.uacr.purepursuit.math;
 
 import org.uacr.purepursuit.PathUtil;
 
+/**
+ * A line segment from an initial to a terminal point.
+ * The length and unit direction are calculated once, so points on the line are found with a parameter along it
+ * and dot products instead of slopes and angles.
+ */
+
 public class Line {
 
     private final Point fInitial;
     private final Point fTerminal;
     private final Vector fDelta;
 
+    private final double fLength;
+
+    /**
+     * The direction of the line with a length of one, zero if the line has no length
+     */
+    private final double fUnitX;
+    private final double fUnitY;
+
     public Line(Point initial, Point terminal) {
         fInitial = initial;
         fTerminal = terminal;
         fDelta = new Vector(fTerminal.subtract(fInitial));
+
+        fLength = VectorMath.magnitude(fDelta.getX(), fDelta.getY());
+        fUnitX = fLength > 0 ? fDelta.getX() / fLength : 0;
+        fUnitY = fLength > 0 ? fDelta.getY() / fLength : 0;
     }
 
     public Line(Point initial, Vector terminalFromInitial) {
@@ -43,7 +61,15 @@ public class Line {
     }
 
     public double length() {
-        return delta().magnitude();
+        return fLength;
+    }
+
+    public double getUnitX() {
+        return fUnitX;
+    }
+
+    public double getUnitY() {
+        return fUnitY;
     }
 
     public Line shift(Vector vector) {
@@ -58,37 +84,54 @@ public class Line {
         return new Point(initial().getX() + (y - initial().getY()) / slope(), y);
     }
 
+    /**
+     * Finds the intersection of the infinite lines through this line and the given line
+     *
+     * @param line the line to intersect with
+     * @return the intersection, or null if the lines are parallel
+     */
     public Point intersection(Line line) {
-        if (slope() == line.slope()) {
+        double t = VectorMath.intersectionParameter(initial().getX(), initial().getY(), delta().getX(), delta().getY(),
+                line.initial().getX(), line.initial().getY(), line.delta().getX(), line.delta().getY());
+
+        if (Double.isNaN(t)) {
             return null;
         }
 
-        if (slope() == Double.POSITIVE_INFINITY || slope() == Double.NEGATIVE_INFINITY) {
-            return line.evaluateX(initial().getX());
-        }
+        return new Point(initial().getX() + t * delta().getX(), initial().getY() + t * delta().getY());
+    }
 
-        if (line.slope() == Double.POSITIVE_INFINITY || line.slope() == Double.NEGATIVE_INFINITY) {
-            return evaluateX(line.initial().getX());
-        }
+    public Point pointFromDistance(double distance) {
+        return new Point(fInitial.getX() + distance * fUnitX, fInitial.getY() + distance * fUnitY);
+    }
 
-        return evaluateX((line.evaluateX(0).getY() - evaluateX(0).getY()) / (slope() - line.slope()));
+    /**
+     * Projects a point onto the infinite line through this line
+     *
+     * @return the parameter of the projection, the distance from the initial point along the line,
+     * negative before the initial point and greater than the length past the terminal point
+     */
+    public double project(double x, double y) {
+        return VectorMath.dot(x - fInitial.getX(), y - fInitial.getY(), fUnitX, fUnitY);
     }
 
-    public Point pointFromDistance(double distance) {
-        return initial().add(delta().normalize().scale(distance));
+    public double project(Point point) {
+        return project(point.getX(), point.getY());
     }
 
+    /**
+     * @return the closest point to the given point on the infinite line through this line
+     */
     public Point closestPoint(Point point) {
-        return intersection(new Line(point, point.add(new Vector(1, angle()).rotate(90))));
+        return pointFromDistance(project(point));
     }
 
+    /**
+     * @return whether the closest point to the given point on the infinite line is between the initial and terminal points
+     */
     public boolean isInSegment(Point point) {
-        Point closestPoint = closestPoint(point);
-
-
-        return (PathUtil.toleranceEquals(new Vector(closestPoint.subtract(terminal())).angle(), new Vector(initial().subtract(terminal())).angle(), 0.00001) &&
-                PathUtil.toleranceEquals(new Vector(closestPoint.subtract(initial())).angle(), delta().angle(), 0.00001)) ||
-                point.equals(initial()) || point.equals(terminal());
+        double parameter = project(point);
+        return 0 <= parameter && parameter <= fLength;
     }
 
     public boolean isInDomain(double x) {
@@ -99,23 +142,19 @@ public class Line {
         return Math.min(initial().getY(), terminal().getY()) <= y && y <= Math.max(initial().getY(), terminal().getY());
     }
 
+    /**
+     * @return the closest point to the given point between the initial and terminal points
+     */
     public Point closestPointInSection(Point point) {
-        Point closestPoint = closestPoint(point);
-        if (new Vector(closestPoint.subtract(initial())).angle() != delta().angle()) {
-            closestPoint = initial();
-        }
-        if (new Vector(closestPoint.subtract(terminal())).angle() != new Vector(initial().subtract(terminal())).angle()) {
-            closestPoint = terminal();
-        }
-        return closestPoint;
+        return pointFromDistance(PathUtil.limit(project(point), 0, fLength));
     }
 
     public double distanceFromInitial(Point point) {
-        return new Vector(point.subtract(initial())).magnitude();
+        return VectorMath.distance(point.getX(), point.getY(), fInitial.getX(), fInitial.getY());
     }
 
     public double distanceFromTerminal(Point point) {
-        return new Vector(point.subtract(terminal())).magnitude();
+        return VectorMath.distance(point.getX(), point.getY(), fTerminal.getX(), fTerminal.getY());
     }
 
     public String toString() {
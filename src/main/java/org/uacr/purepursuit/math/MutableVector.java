@@ -0,0 +1,119 @@
+package org.uacr.purepursuit.math;
+
+/**
+ * MutableVector is a reusable scratch vector for code that can't allocate,
+ * every operation changes this vector and returns it so calls can be chained
+ */
+
+public class MutableVector {
+
+    private double mX;
+    private double mY;
+
+    public MutableVector() {
+        this(0, 0);
+    }
+
+    public MutableVector(double x, double y) {
+        mX = x;
+        mY = y;
+    }
+
+    public MutableVector(Point point) {
+        this(point.getX(), point.getY());
+    }
+
+    public double getX() {
+        return mX;
+    }
+
+    public double getY() {
+        return mY;
+    }
+
+    public MutableVector set(double x, double y) {
+        mX = x;
+        mY = y;
+        return this;
+    }
+
+    public MutableVector set(Point point) {
+        return set(point.getX(), point.getY());
+    }
+
+    public MutableVector set(MutableVector vector) {
+        return set(vector.mX, vector.mY);
+    }
+
+    public MutableVector add(double x, double y) {
+        return set(mX + x, mY + y);
+    }
+
+    public MutableVector add(Point point) {
+        return add(point.getX(), point.getY());
+    }
+
+    public MutableVector subtract(double x, double y) {
+        return set(mX - x, mY - y);
+    }
+
+    public MutableVector subtract(Point point) {
+        return subtract(point.getX(), point.getY());
+    }
+
+    public MutableVector scale(double scalar) {
+        return set(mX * scalar, mY * scalar);
+    }
+
+    public MutableVector invert() {
+        return set(-mX, -mY);
+    }
+
+    public MutableVector rotate(double degrees) {
+        double radians = Math.toRadians(degrees);
+        double cos = Math.cos(radians);
+        double sin = Math.sin(radians);
+        return set(mX * cos - mY * sin, mX * sin + mY * cos);
+    }
+
+    /**
+     * Scales the vector to a magnitude of one, a vector with no magnitude is left unchanged
+     */
+    public MutableVector normalize() {
+        double magnitude = magnitude();
+
+        if (magnitude == 0) {
+            return this;
+        }
+
+        return scale(1 / magnitude);
+    }
+
+    public double magnitude() {
+        return VectorMath.magnitude(mX, mY);
+    }
+
+    public double angle() {
+        return VectorMath.angle(mX, mY);
+    }
+
+    public double dot(double x, double y) {
+        return VectorMath.dot(mX, mY, x, y);
+    }
+
+    public double distance(double x, double y) {
+        return VectorMath.distance(mX, mY, x, y);
+    }
+
+    public Point toPoint() {
+        return new Point(mX, mY);
+    }
+
+    public Vector toVector() {
+        return new Vector(0, 0, mX, mY);
+    }
+
+    public String toString() {
+        return "<" + mX + ", " + mY + ">";
+    }
+}
@@ -54,7 +54,7 @@ public class Point {
     }
 
     public double distance(Point point) {
-        return Math.sqrt(Math.pow(point.fX - fX, 2) + Math.pow(point.fY - fY, 2));
+        return VectorMath.distance(fX, fY, point.fX, point.fY);
     }
 
     public boolean equals(Object object) {
@@ -11,69 +11,103 @@ import java.util.List;
 
 public class Vector extends Point {
 
-    private double fMagnitude;
-    private double fAngle;
+    /**
+     * The magnitude and angle are only calculated the first time they are asked for.
+     * Each is published by its volatile flag, so a vector shared between threads never reads a half written double,
+     * and vectors created from x and y don't pay for a volatile write.
+     */
+    private double mMagnitude;
+    private double mAngle;
+    private volatile boolean mIsMagnitudeCached;
+    private volatile boolean mIsAngleCached;
 
     public Vector() {
         super();
-        fMagnitude = 0;
-        fAngle = 0;
     }
 
+    /**
+     * @param magnitude the magnitude of the vector
+     * @param angle     the angle of the vector in degrees
+     */
     public Vector(double magnitude, double angle) {
-        this(new Point(magnitude * Math.cos(Math.toRadians(angle)), magnitude * Math.sin(Math.toRadians(angle))));
-        fMagnitude = magnitude;
-        fAngle = angle;
+        super(magnitude * Math.cos(Math.toRadians(angle)), magnitude * Math.sin(Math.toRadians(angle)));
+        mMagnitude = magnitude;
+        mAngle = angle;
+        mIsMagnitudeCached = true;
+        mIsAngleCached = true;
     }
 
     public Vector(List<Double> coordinates) {
         super(coordinates);
-        fMagnitude = Math.sqrt(Math.pow(fX, 2) + Math.pow(fY, 2));
-        fAngle = Math.toDegrees(Math.atan2(fY, fX));
     }
 
     public Vector(Point point) {
         super(point.getX(), point.getY());
-        fMagnitude = Math.sqrt(Math.pow(fX, 2) + Math.pow(fY, 2));
-        fAngle = Math.toDegrees(Math.atan2(fY, fX));
     }
 
     public Vector(double x1, double y1, double x2, double y2) {
-        this(new Point(x2 - x1, y2 - y1));
-        fMagnitude = Math.sqrt(Math.pow(fX, 2) + Math.pow(fY, 2));
-        fAngle = Math.toDegrees(Math.atan2(fY, fX));
+        super(x2 - x1, y2 - y1);
     }
 
     public Vector(Point point1, Point point2) {
         this(point1.getX(), point1.getY(), point2.getX(), point2.getY());
     }
 
+    /**
+     * Creates a vector from its x and y components
+     */
+    public static Vector fromCartesian(double x, double y) {
+        return new Vector(0, 0, x, y);
+    }
+
     public double magnitude() {
-        return fMagnitude;
+        if (!mIsMagnitudeCached) {
+            mMagnitude = VectorMath.magnitude(fX, fY);
+            mIsMagnitudeCached = true;
+        }
+
+        return mMagnitude;
     }
 
+    /**
+     * @return the angle of the vector in degrees
+     */
     public double angle() {
-        return fAngle;
+        if (!mIsAngleCached) {
+            mAngle = VectorMath.angle(fX, fY);
+            mIsAngleCached = true;
+        }
+
+        return mAngle;
     }
 
+    /**
+     * @return a vector with a length of one in the same direction, a vector with no length gives the unit vector at its angle
+     */
     public Vector normalize() {
-        return new Vector(1, angle());
+        double magnitude = magnitude();
+
+        if (magnitude == 0) {
+            return new Vector(1, angle());
+        }
+
+        return fromCartesian(fX / magnitude, fY / magnitude);
     }
 
     public Vector scale(double scalar) {
-        return new Vector(magnitude() * scalar, angle());
+        return fromCartesian(fX * scalar, fY * scalar);
     }
 
     public Vector invert() {
-        return rotate(180);
+        return fromCartesian(-fX, -fY);
     }
 
     public Vector rotate(double degrees) {
-        return new Vector(magnitude(), angle() + degrees);
+        return fromCartesian(VectorMath.rotateX(fX, fY, degrees), VectorMath.rotateY(fX, fY, degrees));
     }
 
     public double dot(Vector vector) {
-        return fX * vector.getX() + fY * vector.getY();
+        return VectorMath.dot(fX, fY, vector.getX(), vector.getY());
     }
 
     public String toString() {
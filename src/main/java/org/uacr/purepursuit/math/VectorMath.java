@@ -0,0 +1,123 @@
+package org.uacr.purepursuit.math;
+
+/**
+ * VectorMath is the primitive, allocation free geometry kernel
+ * that Point, Vector, Line and Circle are built on.
+ * All angles are in degrees, the same as the rest of the math package.
+ */
+
+public class VectorMath {
+
+    private VectorMath() {
+
+    }
+
+    public static double dot(double x1, double y1, double x2, double y2) {
+        return x1 * x2 + y1 * y2;
+    }
+
+    /**
+     * @return the z component of the cross product of the two vectors
+     */
+    public static double cross(double x1, double y1, double x2, double y2) {
+        return x1 * y2 - y1 * x2;
+    }
+
+    public static double magnitude(double x, double y) {
+        return Math.sqrt(x * x + y * y);
+    }
+
+    public static double angle(double x, double y) {
+        return Math.toDegrees(Math.atan2(y, x));
+    }
+
+    public static double distance(double x1, double y1, double x2, double y2) {
+        return magnitude(x2 - x1, y2 - y1);
+    }
+
+    public static double rotateX(double x, double y, double degrees) {
+        double radians = Math.toRadians(degrees);
+        return x * Math.cos(radians) - y * Math.sin(radians);
+    }
+
+    public static double rotateY(double x, double y, double degrees) {
+        double radians = Math.toRadians(degrees);
+        return x * Math.sin(radians) + y * Math.cos(radians);
+    }
+
+    /**
+     * Projects a point onto the infinite line through initial in the direction of delta
+     *
+     * @return the parameter t of the projection, where initial + t * delta is the closest point on the line,
+     * or NaN if delta has no length
+     */
+    public static double projectionParameter(double x, double y, double initialX, double initialY, double deltaX, double deltaY) {
+        double lengthSquared = dot(deltaX, deltaY, deltaX, deltaY);
+
+        if (lengthSquared == 0) {
+            return Double.NaN;
+        }
+
+        return dot(x - initialX, y - initialY, deltaX, deltaY) / lengthSquared;
+    }
+
+    /**
+     * Intersects the infinite line initial1 + t * delta1 with the infinite line initial2 + u * delta2
+     *
+     * @return the parameter t along the first line of the intersection, or NaN if the lines are parallel
+     */
+    public static double intersectionParameter(double initialX1, double initialY1, double deltaX1, double deltaY1,
+                                               double initialX2, double initialY2, double deltaX2, double deltaY2) {
+        double denominator = cross(deltaX1, deltaY1, deltaX2, deltaY2);
+
+        if (denominator == 0) {
+            return Double.NaN;
+        }
+
+        return cross(initialX2 - initialX1, initialY2 - initialY1, deltaX2, deltaY2) / denominator;
+    }
+
+    /**
+     * Finds the intersections between a circle and the infinite line through initial and terminal
+     * Equation from: https://mathworld.wolfram.com/Circle-LineIntersection.html
+     *
+     * @param first  set to the first intersection if there is one
+     * @param second set to the second intersection if there is one
+     * @return the number of intersections found
+     */
+    public static int circleLineIntersections(double centerX, double centerY, double radius,
+                                              double initialX, double initialY, double terminalX, double terminalY,
+                                              MutableVector first, MutableVector second) {
+        // Shift the line so the circle is centered on the origin
+        double x1 = initialX - centerX;
+        double y1 = initialY - centerY;
+        double x2 = terminalX - centerX;
+        double y2 = terminalY - centerY;
+
+        double d = cross(x1, y1, x2, y2);
+        double deltaX = x2 - x1;
+        double deltaY = y2 - y1;
+        double deltaMagnitudeSquared = dot(deltaX, deltaY, deltaX, deltaY);
+        double discriminant = radius * radius * deltaMagnitudeSquared - d * d;
+
+        if (discriminant < 0) {
+            return 0;
+        }
+
+        double root = Math.sqrt(discriminant);
+        double xDiscriminant = (deltaY < 0 ? -1 : 1) * deltaX * root;
+        double yDiscriminant = Math.abs(deltaY) * root;
+
+        first.set((d * deltaY + xDiscriminant) / deltaMagnitudeSquared + centerX,
+                (-d * deltaX + yDiscriminant) / deltaMagnitudeSquared + centerY);
+
+        if (discriminant > 1) {
+            second.set((d * deltaY - xDiscriminant) / deltaMagnitudeSquared + centerX,
+                    (-d * deltaX - yDiscriminant) / deltaMagnitudeSquared + centerY);
+
+            return 2;
+        }
+
+        return 1;
+    }
+}
@@ -0,0 +1,335 @@
+package org.uacr.purepursuit.odometry;
+
+import org.uacr.purepursuit.PathUtil;
+import org.uacr.purepursuit.math.Pose2d;
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * OdometryIntegrator works out the pose of a differential drive robot from its encoders and gyro on its own thread,
+ * sampling the sensors far more often than the control loop runs so reading the pose never waits on a sensor.
+ * Every sample the robot is moved exactly along the arc the encoder and gyro deltas describe.
+ *
+ * The pose is published with a sequence lock: the integrator thread is the only writer and marks the sequence odd while it writes,
+ * readers retry if the sequence was odd or changed while they read. Neither side locks or allocates.
+ * A controller reads it into an array of its own, so the only allocation each tick is the pose it returns:
+ * <pre>
+ * private final double[] fPose = new double[3];
+ *
+ * public Pose2d getCurrentPose() {
+ *     odometry.readPose(fPose);
+ *     return new Pose2d(fPose[0], fPose[1], fPose[2]);
+ * }
+ * </pre>
+ */
+
+public class OdometryIntegrator implements AutoCloseable {
+
+    private static final Logger sLogger = LogManager.getLogger(OdometryIntegrator.class);
+
+    /**
+     * The slots of the published pose, doubles are stored as their raw bits
+     */
+    private static final int X = 0;
+    private static final int Y = 1;
+    private static final int HEADING = 2;
+    private static final int TIMESTAMP = 3;
+
+    private final OdometrySource fSource;
+    private final double fTrackWidth;
+
+    /**
+     * Odd while the integrator thread is writing the published pose
+     */
+    private final AtomicLong fSequence;
+    private final AtomicLongArray fPublishedPose;
+
+    /**
+     * A pose to move to, set by any thread and applied by the integrator thread on its next sample
+     */
+    private final AtomicReference<Pose2d> fPendingPose;
+
+    private final AtomicLong fSamples;
+    private final AtomicLong fFailures;
+
+    private volatile long mSamplePeriodNanos;
+    private volatile boolean mIsRunning;
+
+    @Nullable
+    private Thread mThread;
+
+    /**
+     * Only used by the integrator thread
+     */
+    private double mX;
+    private double mY;
+    private double mHeading;
+    private double mLastLeftDistance;
+    private double mLastRightDistance;
+    private double mLastGyroHeading;
+
+    /**
+     * @param source     the encoders and gyro
+     * @param trackWidth the distance between the left and right wheels, in the same unit as the encoder distances
+     */
+    public OdometryIntegrator(OdometrySource source, double trackWidth) {
+        fSource = source;
+        fTrackWidth = trackWidth;
+
+        fSequence = new AtomicLong();
+        fPublishedPose = new AtomicLongArray(4);
+        // The first sample only sets where the sensors start from, so it starts the robot at the origin
+        fPendingPose = new AtomicReference<>(new Pose2d());
+
+        fSamples = new AtomicLong();
+        fFailures = new AtomicLong();
+
+        mSamplePeriodNanos = TimeUnit.MILLISECONDS.toNanos(1);
+        mIsRunning = false;
+        mThread = null;
+
+        mX = 0;
+        mY = 0;
+        mHeading = 0;
+        mLastLeftDistance = 0;
+        mLastRightDistance = 0;
+        mLastGyroHeading = Double.NaN;
+    }
+
+    public double getTrackWidth() {
+        return fTrackWidth;
+    }
+
+    public long getSamplePeriodNanos() {
+        return mSamplePeriodNanos;
+    }
+
+    /**
+     * @param samplePeriodNanos the time between samples of the sensors
+     */
+    public void setSamplePeriodNanos(long samplePeriodNanos) {
+        mSamplePeriodNanos = Math.max(samplePeriodNanos, 1);
+    }
+
+    /**
+     * Moves the robot to a pose, the published pose changes on the integrator's next sample
+     */
+    public void setPose(Pose2d pose) {
+        fPendingPose.set(pose);
+    }
+
+    /**
+     * Starts sampling the sensors on the integrator thread
+     */
+    public synchronized void start() {
+        if (mIsRunning) {
+            return;
+        }
+
+        mIsRunning = true;
+        mThread = new Thread(this::sampleLoop, "odometry-integrator");
+        mThread.setDaemon(true);
+        mThread.setPriority(Thread.MAX_PRIORITY);
+        mThread.start();
+    }
+
+    /**
+     * Stops the integrator thread, the last published pose can still be read
+     */
+    @Override
+    public synchronized void close() {
+        if (!mIsRunning) {
+            return;
+        }
+
+        mIsRunning = false;
+
+        if (mThread != null) {
+            LockSupport.unpark(mThread);
+            try {
+                mThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            mThread = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return mIsRunning;
+    }
+
+    private void sampleLoop() {
+        long deadline = System.nanoTime();
+
+        while (mIsRunning) {
+            try {
+                sample();
+            } catch (RuntimeException e) {
+                fFailures.lazySet(fFailures.get() + 1);
+                sLogger.error("Failed to sample odometry: {}", e.toString());
+            }
+
+            long samplePeriod = mSamplePeriodNanos;
+            deadline += samplePeriod;
+
+            long remaining = deadline - System.nanoTime();
+
+            // Don't try to make up for missed samples, the next sample covers all the movement since the last one
+            if (remaining < 0) {
+                deadline -= (remaining / samplePeriod) * samplePeriod;
+            }
+
+            while (mIsRunning && (remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, remaining);
+            }
+        }
+    }
+
+    /**
+     * Reads the sensors, integrates the movement since the last sample and publishes the pose.
+     * Called by the integrator thread, or by a single thread of the caller's own if the integrator isn't started.
+     */
+    public void sample() {
+        long timestamp = System.nanoTime();
+
+        double leftDistance = fSource.getLeftDistance();
+        double rightDistance = fSource.getRightDistance();
+        double gyroHeading = fSource.getHeading();
+
+        Pose2d pendingPose = fPendingPose.get();
+
+        if (pendingPose != null && fPendingPose.compareAndSet(pendingPose, null)) {
+            mX = pendingPose.getX();
+            mY = pendingPose.getY();
+            mHeading = pendingPose.getHeading();
+        } else {
+            double deltaLeft = leftDistance - mLastLeftDistance;
+            double deltaRight = rightDistance - mLastRightDistance;
+
+            double deltaHeading;
+            if (Double.isNaN(gyroHeading) || Double.isNaN(mLastGyroHeading)) {
+                deltaHeading = Math.toDegrees((deltaRight - deltaLeft) / fTrackWidth);
+            } else {
+                deltaHeading = PathUtil.angleWrap(gyroHeading - mLastGyroHeading);
+            }
+
+            integrate((deltaLeft + deltaRight) / 2, deltaHeading);
+        }
+
+        mLastLeftDistance = leftDistance;
+        mLastRightDistance = rightDistance;
+        mLastGyroHeading = gyroHeading;
+
+        publish(timestamp);
+        fSamples.lazySet(fSamples.get() + 1);
+    }
+
+    /**
+     * Moves the robot along an arc
+     *
+     * @param distance     the distance travelled along the arc
+     * @param deltaHeading the change in heading over the arc in degrees
+     */
+    private void integrate(double distance, double deltaHeading) {
+        double heading = Math.toRadians(mHeading);
+        double deltaRadians = Math.toRadians(deltaHeading);
+
+        if (Math.abs(deltaRadians) < 1e-9) {
+            mX += distance * Math.cos(heading);
+            mY += distance * Math.sin(heading);
+        } else {
+            double radius = distance / deltaRadians;
+
+            mX += radius * (Math.sin(heading + deltaRadians) - Math.sin(heading));
+            mY -= radius * (Math.cos(heading + deltaRadians) - Math.cos(heading));
+        }
+
+        mHeading = PathUtil.angleWrap(mHeading + deltaHeading);
+    }
+
+    private void publish(long timestamp) {
+        long sequence = fSequence.get() + 1;
+
+        fSequence.set(sequence);
+
+        fPublishedPose.lazySet(X, Double.doubleToRawLongBits(mX));
+        fPublishedPose.lazySet(Y, Double.doubleToRawLongBits(mY));
+        fPublishedPose.lazySet(HEADING, Double.doubleToRawLongBits(mHeading));
+        fPublishedPose.lazySet(TIMESTAMP, timestamp);
+
+        fSequence.lazySet(sequence + 1);
+    }
+
+    /**
+     * Copies the latest pose without allocating
+     *
+     * @param pose filled with the x, y and heading of the robot
+     * @return the System.nanoTime() the sensors were read at for the pose, 0 if there hasn't been a sample yet
+     */
+    public long readPose(double[] pose) {
+        while (true) {
+            long sequence = fSequence.get();
+
+            if ((sequence & 1) == 0) {
+                double x = Double.longBitsToDouble(fPublishedPose.get(X));
+                double y = Double.longBitsToDouble(fPublishedPose.get(Y));
+                double heading = Double.longBitsToDouble(fPublishedPose.get(HEADING));
+                long timestamp = fPublishedPose.get(TIMESTAMP);
+
+                if (fSequence.get() == sequence) {
+                    pose[0] = x;
+                    pose[1] = y;
+                    pose[2] = heading;
+                    return timestamp;
+                }
+            }
+        }
+    }
+
+    /**
+     * Allocates a pose every call, a control loop should use {@link #readPose(double[])} with an array of its own instead
+     *
+     * @return the latest pose
+     */
+    public Pose2d getPose() {
+        while (true) {
+            long sequence = fSequence.get();
+
+            if ((sequence & 1) == 0) {
+                double x = Double.longBitsToDouble(fPublishedPose.get(X));
+                double y = Double.longBitsToDouble(fPublishedPose.get(Y));
+                double heading = Double.longBitsToDouble(fPublishedPose.get(HEADING));
+
+                if (fSequence.get() == sequence) {
+                    return new Pose2d(x, y, heading);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of times the sensors were sampled
+     */
+    public long getSamples() {
+        return fSamples.get();
+    }
+
+    /**
+     * @return the number of samples that failed because a sensor threw
+     */
+    public long getFailures() {
+        return fFailures.get();
+    }
+
+    public String toString() {
+        return "Pose: " + getPose() + " Samples: " + getSamples() + " Failures: " + getFailures();
+    }
+}
@@ -0,0 +1,24 @@
+package org.uacr.purepursuit.odometry;
+
+/**
+ * The sensors an {@link OdometryIntegrator} reads, called from the integrator's thread at the sample rate
+ */
+
+public interface OdometrySource {
+
+    /**
+     * @return the total distance the left side of the drive has travelled, forward positive
+     */
+    double getLeftDistance();
+
+    /**
+     * @return the total distance the right side of the drive has travelled, forward positive
+     */
+    double getRightDistance();
+
+    /**
+     * @return the heading from the gyro in degrees, counterclockwise positive,
+     * or NaN to work the heading out from the difference between the sides
+     */
+    double getHeading();
+}
@@ -0,0 +1,188 @@
+package org.uacr.purepursuit.odometry;
+
+import org.uacr.purepursuit.PathUtil;
+import org.uacr.purepursuit.math.Pose2d;
+
+/**
+ * PoseHistory keeps the most recent timestamped poses of the robot in a fixed size ring of primitive arrays,
+ * so the pose at any recent time can be looked up without allocating.
+ * Times between two poses are interpolated, times after the newest pose are extrapolated from the last two poses,
+ * which estimates where the robot is now from a pose that was measured some time ago.
+ *
+ * A history must only be used by one thread.
+ */
+
+public class PoseHistory {
+
+    private final int fCapacity;
+    private final int fMask;
+
+    private final long[] fTimestamps;
+    private final double[] fXs;
+    private final double[] fYs;
+    private final double[] fHeadings;
+
+    /**
+     * Number of poses ever added, the newest pose is at (mCount - 1) & fMask
+     */
+    private long mCount;
+
+    private long mMaxExtrapolationNanos;
+
+    /**
+     * @param capacity the number of poses kept, rounded up to a power of two
+     */
+    public PoseHistory(int capacity) {
+        fCapacity = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        fMask = fCapacity - 1;
+
+        fTimestamps = new long[fCapacity];
+        fXs = new double[fCapacity];
+        fYs = new double[fCapacity];
+        fHeadings = new double[fCapacity];
+
+        mCount = 0;
+        mMaxExtrapolationNanos = 100_000_000;
+    }
+
+    public int getCapacity() {
+        return fCapacity;
+    }
+
+    /**
+     * @return the number of poses in the history
+     */
+    public int size() {
+        return (int) Math.min(mCount, fCapacity);
+    }
+
+    public void clear() {
+        mCount = 0;
+    }
+
+    public long getMaxExtrapolationNanos() {
+        return mMaxExtrapolationNanos;
+    }
+
+    /**
+     * @param maxExtrapolationNanos the furthest past the newest pose a pose is extrapolated,
+     *                              later times get the pose extrapolated to this far past it
+     */
+    public void setMaxExtrapolationNanos(long maxExtrapolationNanos) {
+        mMaxExtrapolationNanos = Math.max(maxExtrapolationNanos, 0);
+    }
+
+    /**
+     * @return the timestamp of the newest pose, or Long.MIN_VALUE if the history is empty
+     */
+    public long getNewestTimestamp() {
+        return mCount > 0 ? fTimestamps[(int) ((mCount - 1) & fMask)] : Long.MIN_VALUE;
+    }
+
+    /**
+     * Adds a pose, replacing the oldest pose once the history is full.
+     * Poses have to be added in time order, a pose with the same timestamp as the newest replaces it.
+     *
+     * @param timestamp the System.nanoTime() the pose was measured at
+     * @return whether the pose was added, false if it is older than the newest pose
+     */
+    public boolean add(long timestamp, double x, double y, double heading) {
+        if (mCount > 0) {
+            long newestTimestamp = getNewestTimestamp();
+
+            if (timestamp - newestTimestamp < 0) {
+                return false;
+            }
+            if (timestamp == newestTimestamp) {
+                mCount--;
+            }
+        }
+
+        int index = (int) (mCount & fMask);
+
+        fTimestamps[index] = timestamp;
+        fXs[index] = x;
+        fYs[index] = y;
+        fHeadings[index] = heading;
+        mCount++;
+
+        return true;
+    }
+
+    public boolean add(long timestamp, Pose2d pose) {
+        return add(timestamp, pose.getX(), pose.getY(), pose.getHeading());
+    }
+
+    /**
+     * Finds the pose of the robot at a time, times before the oldest pose give the oldest pose
+     *
+     * @param timestamp the System.nanoTime() to find the pose at
+     * @param pose      filled with the x, y and heading of the robot
+     * @return whether there was a pose, false if the history is empty
+     */
+    public boolean getPose(long timestamp, double[] pose) {
+        int size = size();
+
+        if (size == 0) {
+            return false;
+        }
+
+        long newest = mCount - 1;
+        long oldest = mCount - size;
+
+        if (timestamp - fTimestamps[(int) (newest & fMask)] >= 0) {
+            if (size == 1) {
+                copy((int) (newest & fMask), pose);
+            } else {
+                long extrapolation = Math.min(timestamp - fTimestamps[(int) (newest & fMask)], mMaxExtrapolationNanos);
+                interpolate((int) ((newest - 1) & fMask), (int) (newest & fMask), fTimestamps[(int) (newest & fMask)] + extrapolation, pose);
+            }
+            return true;
+        }
+
+        if (timestamp - fTimestamps[(int) (oldest & fMask)] <= 0) {
+            copy((int) (oldest & fMask), pose);
+            return true;
+        }
+
+        // The last pose at or before the timestamp, there is always a pose after it
+        long low = oldest;
+        long high = newest - 1;
+
+        while (low < high) {
+            long middle = (low + high + 1) >>> 1;
+
+            if (fTimestamps[(int) (middle & fMask)] - timestamp <= 0) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        interpolate((int) (low & fMask), (int) ((low + 1) & fMask), timestamp, pose);
+        return true;
+    }
+
+    private void copy(int index, double[] pose) {
+        pose[0] = fXs[index];
+        pose[1] = fYs[index];
+        pose[2] = fHeadings[index];
+    }
+
+    /**
+     * Moves along the line from the pose at the first index through the pose at the second, past it to extrapolate.
+     * The heading turns the short way between the two headings.
+     */
+    private void interpolate(int first, int second, long timestamp, double[] pose) {
+        double duration = fTimestamps[second] - fTimestamps[first];
+        double t = duration > 0 ? (timestamp - fTimestamps[first]) / duration : 1;
+
+        pose[0] = fXs[first] + (fXs[second] - fXs[first]) * t;
+        pose[1] = fYs[first] + (fYs[second] - fYs[first]) * t;
+        pose[2] = PathUtil.angleWrap(fHeadings[first] + PathUtil.angleWrap(fHeadings[second] - fHeadings[first]) * t);
+    }
+
+    public String toString() {
+        return "Poses: " + size() + " Capacity: " + fCapacity;
+    }
+}
@@ -4,13 +4,25 @@ import org.uacr.purepursuit.PathUtil;
 import org.uacr.purepursuit.math.Point;
 import org.uacr.purepursuit.math.Pose2d;
 import org.uacr.purepursuit.path.segment.Segment;
+import org.uacr.purepursuit.path.velocity.SCurveVelocityProfile;
+import org.uacr.purepursuit.path.velocity.TimedTrajectory;
 import org.uacr.purepursuit.path.velocity.TrapezoidVelocityProfile;
 import org.uacr.purepursuit.path.velocity.VelocityProfile;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * A path is never changed once it is built, a robot's progress along it is kept in a PathCursor made with createCursor,
+ * so one built path can be followed by any number of robots and read by other threads without copying it.
+ * The deprecated methods that take the robot's pose follow the path with a cursor of its own, for code written before cursors.
+ */
+
 public class Path {
 
     public static Path createLinePath() {
@@ -29,20 +41,60 @@ public class Path {
         return new Path(segments);
     }
 
+    /**
+     * Creates a path with a velocity profile that was already built, for example a path loaded from a file
+     */
+    public static Path createCompoundPath(List<Segment> segments, PathConstrains constrains, VelocityProfile profile) {
+        return new Path(segments, constrains, profile);
+    }
+
+    /**
+     * Creates the velocity profile a path with the given constraints uses,
+     * an s-curve profile if the constraints limit jerk and a trapezoid profile otherwise
+     */
+    public static VelocityProfile createVelocityProfile(PathConstrains constrains, double length, Map<Double, Double> speedReductions) {
+        if (constrains.maxJerk > 0) {
+            return new SCurveVelocityProfile(constrains, length, speedReductions);
+        }
+
+        return new TrapezoidVelocityProfile(constrains, length, speedReductions);
+    }
+
     private final PathConstrains fConstraints;
+    private final double fLookaheadDistance;
 
     private final List<Segment> fSegments;
     private final VelocityProfile fProfile;
 
-    private int mSegmentIndex;
+    /**
+     * The distance along the path each segment starts at, with the length of the path as the last value
+     */
+    private final double[] fSegmentDistances;
 
-    private Path(List<Segment> segments, PathConstrains constrains) {
-        fConstraints = constrains;
+    /**
+     * The progress of the deprecated methods that take the robot's pose
+     */
+    private final PathCursor fDefaultCursor;
 
-        fSegments = segments;
-        mSegmentIndex = 0;
+    private Path(List<Segment> segments, PathConstrains constrains, @Nullable VelocityProfile profile) {
+        // Copied so changing the constraints the path was built with can't change the path
+        fConstraints = constrains.copy();
+        fLookaheadDistance = fConstraints.lookaheadDistance;
+
+        fSegments = new ArrayList<>(segments);
+
+        fSegmentDistances = new double[fSegments.size() + 1];
+        for (int s = 0; s < fSegments.size(); s++) {
+            fSegmentDistances[s + 1] = fSegmentDistances[s] + fSegments.get(s).length();
+        }
 
-        fProfile = new TrapezoidVelocityProfile(fConstraints, length(), getSpeedReductions());
+        fProfile = profile != null ? profile : createVelocityProfile(fConstraints, length(), getSpeedReductions());
+
+        fDefaultCursor = new PathCursor(this);
+    }
+
+    private Path(List<Segment> segments, PathConstrains constrains) {
+        this(segments, constrains, null);
     }
 
     private Path(List<Segment> segments) {
@@ -54,50 +106,130 @@ public class Path {
     }
 
     public double length() {
-        return fSegments.stream().mapToDouble(Segment::length).sum();
+        return fSegmentDistances[fSegments.size()];
     }
 
-    public Point getLookaheadPoint(Pose2d currentPosition) {
-        return updateCurrentSegment(currentPosition).getLookaheadPoint(currentPosition);
+    /**
+     * @return a copy of the constraints the path was built with
+     */
+    public PathConstrains getConstraints() {
+        return fConstraints.copy();
     }
 
-    public double getVelocity(Pose2d currentPosition) {
-        return fProfile.getVelocity(updateCurrentSegment(currentPosition).getDistance(currentPosition));
+    public double getLookaheadDistance() {
+        return fLookaheadDistance;
     }
 
-    public double getHeading(Pose2d currentPosition) {
-        return 0.0;
+    public List<Segment> getSegments() {
+        return Collections.unmodifiableList(fSegments);
+    }
+
+    public Segment getSegment(int segment) {
+        return fSegments.get(segment);
+    }
+
+    public int getSegmentCount() {
+        return fSegments.size();
+    }
+
+    public VelocityProfile getProfile() {
+        return fProfile;
+    }
+
+    /**
+     * @param period the control period, in the same time unit as the path's velocities
+     * @return the path's velocity profile as setpoints at every control period
+     */
+    public TimedTrajectory createTrajectory(double period) {
+        return new TimedTrajectory(fProfile, length(), period);
+    }
+
+    /**
+     * @return this path, a path is never changed so it can be shared instead of copied
+     * @deprecated share the path and follow it with a cursor from {@link #createCursor()} per robot
+     */
+    @Deprecated
+    public Path copy() {
+        return this;
+    }
+
+    /**
+     * @return a cursor at the start of the path, for one robot to follow it with
+     */
+    public PathCursor createCursor() {
+        return new PathCursor(this);
     }
 
-    private Segment updateCurrentSegment(Pose2d currentPosition) {
-        Segment currentSegment = fSegments.get(mSegmentIndex);
+    /**
+     * @param segment the index of the segment
+     * @return the distance along the path the segment starts at
+     */
+    public double getSegmentDistance(int segment) {
+        return fSegmentDistances[segment];
+    }
 
-        if (mSegmentIndex != fSegments.size() - 1 && currentSegment.isDone(currentPosition)) {
-            mSegmentIndex++;
-            currentSegment = fSegments.get(mSegmentIndex);
+    /**
+     * Finds the segment at a distance along the path, distances off either end of the path give the first or last segment
+     *
+     * @param distance the distance along the path
+     * @return the index of the segment
+     */
+    public int getSegmentIndexAtDistance(double distance) {
+        int low = 0;
+        int high = fSegments.size() - 1;
+
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+
+            if (fSegmentDistances[middle] <= distance) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
         }
 
-        currentSegment.setLookaheadDistance(fConstraints.lookaheadDistance);
-        return currentSegment;
+        return low;
     }
 
+    /**
+     * @deprecated the path's own cursor can only follow one robot, follow the path with a cursor from {@link #createCursor()}
+     */
+    @Deprecated
+    public Point getLookaheadPoint(Pose2d currentPosition) {
+        return fDefaultCursor.getLookaheadPoint(currentPosition);
+    }
+
+    /**
+     * @deprecated the path's own cursor can only follow one robot, follow the path with a cursor from {@link #createCursor()}
+     */
+    @Deprecated
+    public double getVelocity(Pose2d currentPosition) {
+        return fDefaultCursor.getVelocity(currentPosition);
+    }
+
+    public double getHeading(Pose2d currentPosition) {
+        return 0.0;
+    }
+
+    /**
+     * @deprecated the path's own cursor can only follow one robot, follow the path with a cursor from {@link #createCursor()}
+     */
+    @Deprecated
     public boolean isDone(Pose2d currentPosition) {
-        return updateCurrentSegment(currentPosition).isDone(currentPosition);
+        return fDefaultCursor.isDone(currentPosition);
     }
 
     public Map<Double, Double> getSpeedReductions() {
         Map<Double, Double> speedReductions = new HashMap<>();
 
-        double distance = 0.0;
-
         for(int s = 0; s < fSegments.size(); s++) {
             Segment segment = fSegments.get(s);
 
             for(Map.Entry<Double, Double> segmentSpeedReduction : segment.getSpeedReductions().entrySet()) {
-                speedReductions.put(segmentSpeedReduction.getKey() + distance, segmentSpeedReduction.getValue());
+                speedReductions.put(segmentSpeedReduction.getKey() + fSegmentDistances[s], segmentSpeedReduction.getValue());
             }
 
-            distance += segment.length();
+            double distance = fSegmentDistances[s + 1];
 
             if(s < fSegments.size() - 1) {
                 double speedReduction = Math.abs(PathUtil.angleWrap(fSegments.get(s + 1).getInitialAngle() - segment.getFinalAngle())) / 90;
@@ -111,8 +243,14 @@ public class Path {
         return speedReductions;
     }
 
+    /**
+     * Moves the path's own cursor back to the start of the path
+     *
+     * @deprecated the path's own cursor can only follow one robot, follow the path with a cursor from {@link #createCursor()}
+     */
+    @Deprecated
     public void reset() {
-
+        fDefaultCursor.reset();
     }
 
     public String toString() {
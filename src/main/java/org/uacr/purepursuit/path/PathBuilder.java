@@ -66,6 +66,7 @@ public class PathBuilder {
 
         mCurrentSegmentBuildMode = SegmentBuildMode.POINT;
         mCurrentPoint = points.get(points.size() - 1);
+        mCurrentPoints.addAll(points);
         return this;
     }
 
@@ -74,7 +75,8 @@ public class PathBuilder {
     }
 
     private void createSegment() {
-        if(mCurrentSegmentBuildMode == SegmentBuildMode.NONE || mCurrentPoints.size() < 1) {
+        // The current points always hold the start point, a segment needs at least one more
+        if(mCurrentSegmentBuildMode == SegmentBuildMode.NONE || mCurrentPoints.size() < 2) {
             return;
         }
 
@@ -87,7 +89,10 @@ public class PathBuilder {
                 break;
         }
 
-        mCurrentPoints.clear();
+        // The next segment starts where this one ends
+        mCurrentSegmentBuildMode = SegmentBuildMode.NONE;
+        mCurrentPoints = new ArrayList<>();
+        mCurrentPoints.add(mCurrentPoint);
     }
 
     public Path build() {
@@ -96,6 +101,15 @@ public class PathBuilder {
         return Path.createCompoundPath(fSegments, fDefaultConstraints);
     }
 
+    /**
+     * Builds the path, or returns the cached path if a path with the same segments and constraints was already built
+     */
+    public Path build(PathCache cache) {
+        createSegment();
+
+        return cache.getPath(fSegments, fDefaultConstraints);
+    }
+
     private enum SegmentBuildMode {
         NONE,
         LINE,
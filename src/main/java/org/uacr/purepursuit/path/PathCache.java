@@ -0,0 +1,334 @@
+package org.uacr.purepursuit.path;
+
+import org.uacr.purepursuit.PathUtil;
+import org.uacr.purepursuit.math.Point;
+import org.uacr.purepursuit.path.segment.LineSegment;
+import org.uacr.purepursuit.path.segment.PointSegment;
+import org.uacr.purepursuit.path.segment.PointSmoother;
+import org.uacr.purepursuit.path.segment.Segment;
+import org.uacr.purepursuit.path.velocity.SCurveVelocityProfile;
+import org.uacr.purepursuit.path.velocity.TrapezoidVelocityProfile;
+import org.uacr.purepursuit.path.velocity.VelocityProfile;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PathCache is a bounded least recently used cache of built paths and velocity profiles,
+ * keyed by their content (waypoints, segment types and constraint values) instead of by object,
+ * so routines that define the same path or profile only build it once.
+ *
+ * Paths are never changed by following them, so every caller gets the same cached path
+ * and follows it with its own PathCursor. The constraints are copied when a path is cached,
+ * so changing the constraints object afterwards doesn't change the cached path.
+ *
+ * The memory bound is on an estimate of the memory used by the cached geometry and profiles.
+ */
+
+public class PathCache {
+
+    /**
+     * Rough sizes in bytes used to estimate the memory held by each entry
+     */
+    private static final long LINE_BYTES = 160;
+    private static final long POINT_BYTES = 80;
+    private static final long PROFILE_CORNER_BYTES = 184;
+    private static final long PROFILE_PIECE_BYTES = 48;
+    private static final long ENTRY_BYTES = 256;
+
+    private static final double PATH_KEY = 1;
+    private static final double PROFILE_KEY = 2;
+    private static final double LINE_SEGMENT = 1;
+    private static final double POINT_SEGMENT = 2;
+
+    private final long fMaxBytes;
+    private final LinkedHashMap<Key, Entry> fEntries;
+
+    private long mBytes;
+    private long mHits;
+    private long mMisses;
+    private long mEvictions;
+
+    /**
+     * @param maxBytes the most memory the cached paths and profiles are estimated to use before the least recently used are evicted
+     */
+    public PathCache(long maxBytes) {
+        fMaxBytes = maxBytes;
+        fEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+        mBytes = 0;
+        mHits = 0;
+        mMisses = 0;
+        mEvictions = 0;
+    }
+
+    /**
+     * Finds a cached path with the same segments and constraints or builds and caches one
+     *
+     * @param segments   the segments of the path, only used to build the path if it isn't cached
+     * @param constrains the constraints of the path
+     * @return a path that may be shared with other callers
+     */
+    public Path getPath(List<Segment> segments, PathConstrains constrains) {
+        Key key = new Key(pathContent(segments, constrains));
+
+        Path path = (Path) get(key);
+
+        if (path == null) {
+            path = Path.createCompoundPath(segments, constrains);
+            path = (Path) put(key, path, estimateBytes(path));
+        }
+
+        return path;
+    }
+
+    /**
+     * Finds a cached velocity profile with the same inputs or builds and caches one,
+     * the profile is built the same way a path with the constraints builds its profile
+     *
+     * @return a profile that may be shared with other callers
+     */
+    public VelocityProfile getProfile(PathConstrains constrains, double length, Map<Double, Double> speedReductions) {
+        Key key = new Key(profileContent(constrains, length, speedReductions));
+
+        VelocityProfile profile = (VelocityProfile) get(key);
+
+        if (profile == null) {
+            profile = Path.createVelocityProfile(constrains, length, speedReductions);
+            profile = (VelocityProfile) put(key, profile, ENTRY_BYTES + estimateBytes(profile));
+        }
+
+        return profile;
+    }
+
+    /**
+     * A stable 64 bit fingerprint of a path's waypoints, segment types, smoothing settings and constraint values,
+     * the same path always gives the same fingerprint on every run and every machine
+     */
+    public static long fingerprint(List<Segment> segments, PathConstrains constrains) {
+        return PathUtil.fingerprint(pathContent(segments, constrains));
+    }
+
+    private synchronized Object get(Key key) {
+        Entry entry = fEntries.get(key);
+
+        if (entry == null) {
+            mMisses++;
+            return null;
+        }
+
+        mHits++;
+        return entry.fValue;
+    }
+
+    /**
+     * Caches the value unless another thread cached one with the same key first
+     *
+     * @return the cached value
+     */
+    private synchronized Object put(Key key, Object value, long bytes) {
+        Entry entry = fEntries.get(key);
+
+        if (entry != null) {
+            return entry.fValue;
+        }
+
+        fEntries.put(key, new Entry(value, bytes));
+        mBytes += bytes;
+
+        Iterator<Entry> entries = fEntries.values().iterator();
+        while (mBytes > fMaxBytes && entries.hasNext()) {
+            mBytes -= entries.next().fBytes;
+            entries.remove();
+            mEvictions++;
+        }
+
+        return value;
+    }
+
+    public synchronized void clear() {
+        fEntries.clear();
+        mBytes = 0;
+    }
+
+    public long getMaxBytes() {
+        return fMaxBytes;
+    }
+
+    /**
+     * @return the estimated memory used by the cached paths and profiles
+     */
+    public synchronized long getBytes() {
+        return mBytes;
+    }
+
+    public synchronized int size() {
+        return fEntries.size();
+    }
+
+    public synchronized long getHits() {
+        return mHits;
+    }
+
+    public synchronized long getMisses() {
+        return mMisses;
+    }
+
+    public synchronized long getEvictions() {
+        return mEvictions;
+    }
+
+    public synchronized String toString() {
+        return "Entries: " + fEntries.size() + " Bytes: " + mBytes + " Hits: " + mHits + " Misses: " + mMisses + " Evictions: " + mEvictions;
+    }
+
+    private static long estimateBytes(Path path) {
+        long bytes = ENTRY_BYTES;
+
+        for (Segment segment : path.getSegments()) {
+            if (segment instanceof LineSegment) {
+                bytes += ((LineSegment) segment).getPoints().size() * LINE_BYTES;
+            } else if (segment instanceof PointSegment) {
+                bytes += ((PointSegment) segment).getDistances().length * POINT_BYTES;
+            }
+        }
+
+        return bytes + estimateBytes(path.getProfile());
+    }
+
+    private static long estimateBytes(VelocityProfile profile) {
+        if (profile instanceof TrapezoidVelocityProfile) {
+            return ((TrapezoidVelocityProfile) profile).getDistances().length * PROFILE_CORNER_BYTES;
+        }
+        if (profile instanceof SCurveVelocityProfile) {
+            return ((SCurveVelocityProfile) profile).getStarts().length * PROFILE_PIECE_BYTES;
+        }
+
+        return 0;
+    }
+
+    private static double[] pathContent(List<Segment> segments, PathConstrains constrains) {
+        Content content = new Content();
+
+        content.add(PATH_KEY);
+        content.add(constrains.toArray());
+        content.add(segments.size());
+
+        for (Segment segment : segments) {
+            if (segment instanceof LineSegment) {
+                content.add(LINE_SEGMENT);
+                content.add(((LineSegment) segment).getPoints());
+            } else if (segment instanceof PointSegment) {
+                PointSegment pointSegment = (PointSegment) segment;
+                PointSmoother smoother = pointSegment.getSmoother();
+
+                content.add(POINT_SEGMENT);
+                content.add(pointSegment.getPointSpacing());
+                content.add(smoother.getSmoothing());
+                content.add(smoother.getTolerance());
+                content.add(smoother.getConvergenceCriterion().ordinal());
+                content.add(smoother.getMaxIterations());
+                content.add(pointSegment.getSearchWindow());
+                content.add(pointSegment.getWaypoints());
+            } else {
+                throw new IllegalArgumentException("Path cache can't cache segments of type " + segment.getClass().getName());
+            }
+        }
+
+        return content.toArray();
+    }
+
+    private static double[] profileContent(PathConstrains constrains, double length, Map<Double, Double> speedReductions) {
+        double[] reductionDistances = new double[speedReductions.size()];
+        int reductions = 0;
+        for (double reductionDistance : speedReductions.keySet()) {
+            reductionDistances[reductions++] = reductionDistance;
+        }
+        Arrays.sort(reductionDistances);
+
+        Content content = new Content();
+
+        content.add(PROFILE_KEY);
+        content.add(constrains.toArray());
+        content.add(length);
+        content.add(reductions);
+
+        for (double reductionDistance : reductionDistances) {
+            content.add(reductionDistance);
+            content.add(speedReductions.get(reductionDistance));
+        }
+
+        return content.toArray();
+    }
+
+    /**
+     * Collects the values that identify a path or profile
+     */
+    private static class Content {
+
+        private double[] mValues = new double[64];
+        private int mSize = 0;
+
+        private void add(double value) {
+            if (mSize == mValues.length) {
+                mValues = Arrays.copyOf(mValues, mSize * 2);
+            }
+
+            mValues[mSize++] = value;
+        }
+
+        private void add(double[] values) {
+            for (double value : values) {
+                add(value);
+            }
+        }
+
+        private void add(List<Point> points) {
+            add(points.size());
+
+            for (Point point : points) {
+                add(point.getX());
+                add(point.getY());
+            }
+        }
+
+        private double[] toArray() {
+            return Arrays.copyOf(mValues, mSize);
+        }
+    }
+
+    private static class Key {
+
+        private final double[] fContent;
+        private final int fHashCode;
+
+        private Key(double[] content) {
+            fContent = content;
+            fHashCode = Arrays.hashCode(content);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof Key && Arrays.equals(fContent, ((Key) object).fContent);
+        }
+
+        @Override
+        public int hashCode() {
+            return fHashCode;
+        }
+    }
+
+    private static class Entry {
+
+        private final Object fValue;
+        private final long fBytes;
+
+        private Entry(Object value, long bytes) {
+            fValue = value;
+            fBytes = bytes;
+        }
+    }
+}
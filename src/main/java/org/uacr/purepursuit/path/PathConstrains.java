@@ -1,5 +1,9 @@
 package org.uacr.purepursuit.path;
 
+import org.uacr.purepursuit.PathUtil;
+
+import java.util.Arrays;
+
 public class PathConstrains {
 
     public double lookaheadDistance = 15;
@@ -8,14 +12,71 @@ public class PathConstrains {
     public double minVelocity = 0.1;
     public double maxAcceleration = 0.01;
     public double maxDeceleration = 0.01;
+    /**
+     * Max change in acceleration per distance, paths use an s-curve velocity profile when it is positive
+     * and a trapezoid velocity profile when it is zero
+     */
+    public double maxJerk = 0;
     public double turnVelocityScalar = 0.5;
+    /**
+     * Distance between samples when a velocity profile is sampled into a SampledVelocityProfile
+     */
     public double velocityProfileResolution = 1.0;
 
     public PathConstrains copy() {
-        try {
-            return (PathConstrains) this.clone();
-        } catch (CloneNotSupportedException e) {
-            return new PathConstrains();
+        PathConstrains constrains = new PathConstrains();
+        constrains.lookaheadDistance = lookaheadDistance;
+        constrains.pointSegmentSmoothing = pointSegmentSmoothing;
+        constrains.maxVelocity = maxVelocity;
+        constrains.minVelocity = minVelocity;
+        constrains.maxAcceleration = maxAcceleration;
+        constrains.maxDeceleration = maxDeceleration;
+        constrains.maxJerk = maxJerk;
+        constrains.turnVelocityScalar = turnVelocityScalar;
+        constrains.velocityProfileResolution = velocityProfileResolution;
+        return constrains;
+    }
+
+    /**
+     * @return every constraint value, in the order they are declared
+     */
+    public double[] toArray() {
+        return new double[]{lookaheadDistance, pointSegmentSmoothing, maxVelocity, minVelocity,
+                maxAcceleration, maxDeceleration, maxJerk, turnVelocityScalar, velocityProfileResolution};
+    }
+
+    /**
+     * A stable 64 bit hash of every constraint value, the same values always give the same fingerprint
+     * on every run and every machine, unlike hashCode which isn't meant to be stored
+     *
+     * @return the fingerprint
+     */
+    public long fingerprint() {
+        return PathUtil.fingerprint(toArray());
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
         }
+
+        if (!(object instanceof PathConstrains)) {
+            return false;
+        }
+
+        return Arrays.equals(toArray(), ((PathConstrains) object).toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    public String toString() {
+        return "Lookahead Distance: " + lookaheadDistance + " Point Segment Smoothing: " + pointSegmentSmoothing +
+                " Max Velocity: " + maxVelocity + " Min Velocity: " + minVelocity +
+                " Max Acceleration: " + maxAcceleration + " Max Deceleration: " + maxDeceleration + " Max Jerk: " + maxJerk +
+                " Turn Velocity Scalar: " + turnVelocityScalar + " Velocity Profile Resolution: " + velocityProfileResolution;
     }
 }
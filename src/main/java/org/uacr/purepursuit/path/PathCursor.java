@@ -0,0 +1,99 @@
+package org.uacr.purepursuit.path;
+
+import org.uacr.purepursuit.math.Point;
+import org.uacr.purepursuit.math.Pose2d;
+import org.uacr.purepursuit.path.segment.Segment;
+import org.uacr.purepursuit.path.segment.SegmentCursor;
+
+/**
+ * PathCursor is one follower's progress along a path, the segment it is on and its progress through that segment.
+ * The path is never changed by following it, so any number of cursors can follow the same path,
+ * but each cursor should only be used by one thread at a time.
+ */
+
+public class PathCursor {
+
+    private final Path fPath;
+    private final SegmentCursor fSegmentCursor;
+
+    private int mSegmentIndex;
+
+    public PathCursor(Path path) {
+        fPath = path;
+        fSegmentCursor = new SegmentCursor();
+
+        mSegmentIndex = 0;
+    }
+
+    public Path getPath() {
+        return fPath;
+    }
+
+    /**
+     * @return the index of the segment being followed
+     */
+    public int getSegmentIndex() {
+        return mSegmentIndex;
+    }
+
+    public SegmentCursor getSegmentCursor() {
+        return fSegmentCursor;
+    }
+
+    /**
+     * Moves the cursor back to the start of the path
+     */
+    public void reset() {
+        mSegmentIndex = 0;
+        fSegmentCursor.reset();
+    }
+
+    /**
+     * Calculates the distance along the path the given pose is
+     *
+     * @param currentPosition the pose of the robot
+     * @return the distance along the path the robot is
+     */
+    public double getDistance(Pose2d currentPosition) {
+        Segment currentSegment = updateCurrentSegment(currentPosition);
+
+        return fPath.getSegmentDistance(mSegmentIndex) + currentSegment.getDistance(fSegmentCursor, currentPosition);
+    }
+
+    public Point getLookaheadPoint(Pose2d currentPosition) {
+        return updateCurrentSegment(currentPosition).getLookaheadPoint(fSegmentCursor, currentPosition, fPath.getLookaheadDistance());
+    }
+
+    public double getVelocity(Pose2d currentPosition) {
+        return fPath.getProfile().getVelocity(getDistance(currentPosition));
+    }
+
+    /**
+     * Moves on to the next segment if the current one is done, the other methods that take the robot's pose do this too
+     *
+     * @param currentPosition the pose of the robot
+     */
+    public void updateSegment(Pose2d currentPosition) {
+        updateCurrentSegment(currentPosition);
+    }
+
+    private Segment updateCurrentSegment(Pose2d currentPosition) {
+        Segment currentSegment = fPath.getSegment(mSegmentIndex);
+
+        if (mSegmentIndex != fPath.getSegmentCount() - 1 && currentSegment.isDone(fSegmentCursor, currentPosition)) {
+            mSegmentIndex++;
+            fSegmentCursor.reset();
+            currentSegment = fPath.getSegment(mSegmentIndex);
+        }
+
+        return currentSegment;
+    }
+
+    public boolean isDone(Pose2d currentPosition) {
+        return updateCurrentSegment(currentPosition).isDone(fSegmentCursor, currentPosition);
+    }
+
+    public String toString() {
+        return "Segment: " + mSegmentIndex + " " + fSegmentCursor;
+    }
+}
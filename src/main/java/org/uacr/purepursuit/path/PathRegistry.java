@@ -0,0 +1,135 @@
+package org.uacr.purepursuit.path;
+
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * PathRegistry builds many paths at once, each path is built on its own fork join task
+ * since building one path doesn't depend on any other.
+ *
+ * <pre>
+ * Map&lt;String, Path&gt; paths = new PathRegistry()
+ *         .add("Left Start", () -&gt; PathBuilder.start(0, 0, constrains).lineTo(60, 0).build())
+ *         .add("Right Start", PathBuilder.start(0, 0, constrains).lineTo(0, 60))
+ *         .build();
+ * </pre>
+ */
+
+public class PathRegistry {
+
+    private static final Logger sLogger = LogManager.getLogger(PathRegistry.class);
+
+    private final ForkJoinPool fPool;
+    private final Map<String, Supplier<Path>> fDefinitions;
+    private final Map<String, Long> fBuildTimes;
+
+    public PathRegistry(ForkJoinPool pool) {
+        fPool = pool;
+        fDefinitions = new LinkedHashMap<>();
+        fBuildTimes = new ConcurrentHashMap<>();
+    }
+
+    public PathRegistry() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param name       the name of the path
+     * @param definition creates the path, called once on a pool thread
+     */
+    public PathRegistry add(String name, Supplier<Path> definition) {
+        if (fDefinitions.containsKey(name)) {
+            throw new IllegalArgumentException("A path named " + name + " was already added");
+        }
+
+        fDefinitions.put(name, definition);
+        return this;
+    }
+
+    public PathRegistry add(String name, PathBuilder builder) {
+        return add(name, builder::build);
+    }
+
+    /**
+     * Starts building every path that was added
+     *
+     * @return the future of each path by name, in the order they were added
+     */
+    public Map<String, CompletableFuture<Path>> buildAsync() {
+        Map<String, CompletableFuture<Path>> futures = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Supplier<Path>> definition : fDefinitions.entrySet()) {
+            String name = definition.getKey();
+            Supplier<Path> supplier = definition.getValue();
+
+            futures.put(name, CompletableFuture.supplyAsync(() -> {
+                long startTime = System.nanoTime();
+                Path path = supplier.get();
+                long buildTime = System.nanoTime() - startTime;
+
+                fBuildTimes.put(name, buildTime);
+                sLogger.debug("Built path {} in {} ms", name, TimeUnit.NANOSECONDS.toMillis(buildTime));
+
+                return path;
+            }, fPool));
+        }
+
+        return Collections.unmodifiableMap(futures);
+    }
+
+    /**
+     * Builds every path that was added and waits for them all to finish
+     *
+     * @return every path by name, in the order they were added
+     * @throws java.util.concurrent.CompletionException if building any path failed
+     */
+    public Map<String, Path> build() {
+        long startTime = System.nanoTime();
+
+        Map<String, CompletableFuture<Path>> futures = buildAsync();
+        Map<String, Path> paths = new LinkedHashMap<>();
+
+        for (Map.Entry<String, CompletableFuture<Path>> future : futures.entrySet()) {
+            paths.put(future.getKey(), future.getValue().join());
+        }
+
+        sLogger.info("Built {} paths in {} ms", paths.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+
+        return Collections.unmodifiableMap(paths);
+    }
+
+    /**
+     * @param name the name of the path
+     * @return how long the path took to build in nanoseconds, or -1 if it hasn't been built
+     */
+    public long getBuildTimeNanos(String name) {
+        Long buildTime = fBuildTimes.get(name);
+        return buildTime != null ? buildTime : -1;
+    }
+
+    /**
+     * @return how long each path that has been built took to build in nanoseconds
+     */
+    public Map<String, Long> getBuildTimesNanos() {
+        Map<String, Long> buildTimes = new LinkedHashMap<>();
+
+        for (String name : fDefinitions.keySet()) {
+            Long buildTime = fBuildTimes.get(name);
+
+            if (buildTime != null) {
+                buildTimes.put(name, buildTime);
+            }
+        }
+
+        return Collections.unmodifiableMap(buildTimes);
+    }
+}
@@ -0,0 +1,224 @@
+package org.uacr.purepursuit.path.library;
+
+import org.uacr.purepursuit.math.Point;
+import org.uacr.purepursuit.path.Path;
+import org.uacr.purepursuit.path.PathConstrains;
+import org.uacr.purepursuit.path.segment.LineSegment;
+import org.uacr.purepursuit.path.segment.PointSegment;
+import org.uacr.purepursuit.path.segment.Segment;
+import org.uacr.purepursuit.path.velocity.SCurveVelocityProfile;
+import org.uacr.purepursuit.path.velocity.SampledVelocityProfile;
+import org.uacr.purepursuit.path.velocity.TrapezoidVelocityProfile;
+import org.uacr.purepursuit.path.velocity.VelocityProfile;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * PathLibrary reads paths written by {@link PathLibraryWriter} from a memory mapped file.
+ * Only the index is read when the library is opened, each path is read from the file when it is asked for,
+ * so opening a library costs the same no matter how many paths are in it.
+ *
+ * All values are big endian. The file is laid out as:
+ * <pre>
+ * header:  int magic, short version, short reserved, int path count
+ * index:   for each path, short name length, UTF-8 name, long offset of the path, int length of the path
+ * path:    9 doubles of constraints (lookaheadDistance, pointSegmentSmoothing, maxVelocity, minVelocity,
+ *          maxAcceleration, maxDeceleration, maxJerk, turnVelocityScalar, velocityProfileResolution),
+ *          int segment count, segment count + 1 doubles of cumulative segment distances,
+ *          each segment, then the velocity profile
+ * line:    byte 1, points
+ * point:   byte 2, double point spacing, double smoothing, waypoints, ints of waypoint indices,
+ *          doubles of x values, doubles of y values, doubles of cumulative distances
+ * profile: byte 1, doubles of corner distances, doubles of corner velocities, doubles of slopes (trapezoid)
+ *          or byte 2, double resolution, double distance of the last sample, doubles of velocities (sampled)
+ *          or byte 3, doubles of piece starts, doubles of constant, linear and quadratic coefficients (s-curve)
+ * </pre>
+ * where points are an int count followed by x, y pairs of doubles, and doubles and ints are an int count followed by the values.
+ */
+
+public class PathLibrary {
+
+    public static final int MAGIC = 0x5550504C;
+    public static final short VERSION = 3;
+
+    static final int HEADER_SIZE = 12;
+    static final int INDEX_ENTRY_SIZE = 12;
+
+    static final byte LINE_SEGMENT = 1;
+    static final byte POINT_SEGMENT = 2;
+
+    static final byte TRAPEZOID_PROFILE = 1;
+    static final byte SAMPLED_PROFILE = 2;
+    static final byte S_CURVE_PROFILE = 3;
+
+    public static PathLibrary open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new PathLibrary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private final MappedByteBuffer fBuffer;
+
+    /**
+     * The offset and length of each path in the file by name
+     */
+    private final Map<String, long[]> fIndex;
+
+    private PathLibrary(MappedByteBuffer buffer) throws IOException {
+        fBuffer = buffer;
+
+        ByteBuffer header = fBuffer.duplicate();
+
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+            throw new IOException("Not a path library");
+        }
+
+        short version = header.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported path library version " + version);
+        }
+
+        header.getShort();
+
+        int paths = header.getInt();
+        Map<String, long[]> index = new LinkedHashMap<>();
+
+        for (int p = 0; p < paths; p++) {
+            byte[] name = new byte[header.getShort() & 0xFFFF];
+            header.get(name);
+
+            index.put(new String(name, StandardCharsets.UTF_8), new long[]{header.getLong(), header.getInt()});
+        }
+
+        fIndex = Collections.unmodifiableMap(index);
+    }
+
+    public Set<String> getNames() {
+        return fIndex.keySet();
+    }
+
+    public boolean contains(String name) {
+        return fIndex.containsKey(name);
+    }
+
+    /**
+     * Reads a path from the library, every call reads a new copy of the path
+     *
+     * @param name the name of the path
+     * @return the path, or null if there is no path with that name
+     */
+    @Nullable
+    public Path getPath(String name) {
+        long[] entry = fIndex.get(name);
+
+        if (entry == null) {
+            return null;
+        }
+
+        ByteBuffer buffer = fBuffer.duplicate();
+        buffer.position((int) entry[0]);
+        buffer.limit((int) (entry[0] + entry[1]));
+
+        return readPath(buffer);
+    }
+
+    private static Path readPath(ByteBuffer buffer) {
+        PathConstrains constrains = new PathConstrains();
+        constrains.lookaheadDistance = buffer.getDouble();
+        constrains.pointSegmentSmoothing = buffer.getDouble();
+        constrains.maxVelocity = buffer.getDouble();
+        constrains.minVelocity = buffer.getDouble();
+        constrains.maxAcceleration = buffer.getDouble();
+        constrains.maxDeceleration = buffer.getDouble();
+        constrains.maxJerk = buffer.getDouble();
+        constrains.turnVelocityScalar = buffer.getDouble();
+        constrains.velocityProfileResolution = buffer.getDouble();
+
+        int segmentCount = buffer.getInt();
+        // The segment distances are rebuilt from the segment lengths by the path
+        buffer.position(buffer.position() + (segmentCount + 1) * Double.BYTES);
+
+        List<Segment> segments = new ArrayList<>(segmentCount);
+        for (int s = 0; s < segmentCount; s++) {
+            byte type = buffer.get();
+
+            switch (type) {
+                case LINE_SEGMENT:
+                    segments.add(new LineSegment(readPoints(buffer)));
+                    break;
+                case POINT_SEGMENT:
+                    double pointSpacing = buffer.getDouble();
+                    double pathSmoothing = buffer.getDouble();
+                    List<Point> waypoints = readPoints(buffer);
+                    int[] waypointIndices = readInts(buffer);
+                    double[] xs = readDoubles(buffer);
+                    double[] ys = readDoubles(buffer);
+                    double[] distances = readDoubles(buffer);
+
+                    segments.add(PointSegment.createBuilt(waypoints, pointSpacing, pathSmoothing, xs, ys, distances, waypointIndices));
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown segment type " + type + " in path library");
+            }
+        }
+
+        VelocityProfile profile;
+        byte profileType = buffer.get();
+
+        switch (profileType) {
+            case TRAPEZOID_PROFILE:
+                profile = new TrapezoidVelocityProfile(readDoubles(buffer), readDoubles(buffer), readDoubles(buffer));
+                break;
+            case SAMPLED_PROFILE:
+                double resolution = buffer.getDouble();
+                double length = buffer.getDouble();
+                profile = new SampledVelocityProfile(readDoubles(buffer), resolution, length);
+                break;
+            case S_CURVE_PROFILE:
+                profile = new SCurveVelocityProfile(readDoubles(buffer), readDoubles(buffer), readDoubles(buffer), readDoubles(buffer));
+                break;
+            default:
+                throw new IllegalStateException("Unknown velocity profile type " + profileType + " in path library");
+        }
+
+        return Path.createCompoundPath(segments, constrains, profile);
+    }
+
+    private static List<Point> readPoints(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        List<Point> points = new ArrayList<>(count);
+
+        for (int p = 0; p < count; p++) {
+            points.add(new Point(buffer.getDouble(), buffer.getDouble()));
+        }
+
+        return points;
+    }
+
+    private static double[] readDoubles(ByteBuffer buffer) {
+        double[] values = new double[buffer.getInt()];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Double.BYTES);
+        return values;
+    }
+
+    private static int[] readInts(ByteBuffer buffer) {
+        int[] values = new int[buffer.getInt()];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+        return values;
+    }
+}
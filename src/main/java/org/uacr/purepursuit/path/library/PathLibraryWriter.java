@@ -0,0 +1,176 @@
+package org.uacr.purepursuit.path.library;
+
+import org.uacr.purepursuit.math.Point;
+import org.uacr.purepursuit.path.Path;
+import org.uacr.purepursuit.path.PathConstrains;
+import org.uacr.purepursuit.path.segment.LineSegment;
+import org.uacr.purepursuit.path.segment.PointSegment;
+import org.uacr.purepursuit.path.segment.Segment;
+import org.uacr.purepursuit.path.velocity.SCurveVelocityProfile;
+import org.uacr.purepursuit.path.velocity.SampledVelocityProfile;
+import org.uacr.purepursuit.path.velocity.TrapezoidVelocityProfile;
+import org.uacr.purepursuit.path.velocity.VelocityProfile;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packs fully built paths into a single path library file that can be loaded with {@link PathLibrary},
+ * see PathLibrary for the layout of the file
+ */
+
+public class PathLibraryWriter {
+
+    private final Map<String, Path> fPaths;
+
+    public PathLibraryWriter() {
+        fPaths = new LinkedHashMap<>();
+    }
+
+    public PathLibraryWriter add(String name, Path path) {
+        if (name.getBytes(StandardCharsets.UTF_8).length > 0xFFFF) {
+            throw new IllegalArgumentException("Path name is too long: " + name);
+        }
+
+        fPaths.put(name, path);
+        return this;
+    }
+
+    public void write(File file) throws IOException {
+        List<byte[]> names = new ArrayList<>();
+        List<byte[]> paths = new ArrayList<>();
+
+        for (Map.Entry<String, Path> entry : fPaths.entrySet()) {
+            names.add(entry.getKey().getBytes(StandardCharsets.UTF_8));
+            paths.add(encodePath(entry.getValue()));
+        }
+
+        long offset = PathLibrary.HEADER_SIZE;
+        for (byte[] name : names) {
+            offset += 2 + name.length + PathLibrary.INDEX_ENTRY_SIZE;
+        }
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            output.writeInt(PathLibrary.MAGIC);
+            output.writeShort(PathLibrary.VERSION);
+            output.writeShort(0);
+            output.writeInt(names.size());
+
+            for (int p = 0; p < names.size(); p++) {
+                output.writeShort(names.get(p).length);
+                output.write(names.get(p));
+                output.writeLong(offset);
+                output.writeInt(paths.get(p).length);
+
+                offset += paths.get(p).length;
+            }
+
+            for (byte[] path : paths) {
+                output.write(path);
+            }
+        }
+    }
+
+    private static byte[] encodePath(Path path) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+
+        PathConstrains constrains = path.getConstraints();
+        output.writeDouble(constrains.lookaheadDistance);
+        output.writeDouble(constrains.pointSegmentSmoothing);
+        output.writeDouble(constrains.maxVelocity);
+        output.writeDouble(constrains.minVelocity);
+        output.writeDouble(constrains.maxAcceleration);
+        output.writeDouble(constrains.maxDeceleration);
+        output.writeDouble(constrains.maxJerk);
+        output.writeDouble(constrains.turnVelocityScalar);
+        output.writeDouble(constrains.velocityProfileResolution);
+
+        List<Segment> segments = path.getSegments();
+        output.writeInt(segments.size());
+        for (int s = 0; s <= segments.size(); s++) {
+            output.writeDouble(path.getSegmentDistance(s));
+        }
+
+        for (Segment segment : segments) {
+            if (segment instanceof LineSegment) {
+                output.writeByte(PathLibrary.LINE_SEGMENT);
+                writePoints(output, ((LineSegment) segment).getPoints());
+            } else if (segment instanceof PointSegment) {
+                PointSegment pointSegment = (PointSegment) segment;
+
+                output.writeByte(PathLibrary.POINT_SEGMENT);
+                output.writeDouble(pointSegment.getPointSpacing());
+                output.writeDouble(pointSegment.getPathSmoothing());
+                writePoints(output, pointSegment.getWaypoints());
+                writeInts(output, pointSegment.getWaypointIndices());
+                writeDoubles(output, pointSegment.getXs());
+                writeDoubles(output, pointSegment.getYs());
+                writeDoubles(output, pointSegment.getDistances());
+            } else {
+                throw new IOException("Path library can't store segments of type " + segment.getClass().getName());
+            }
+        }
+
+        VelocityProfile profile = path.getProfile();
+        if (profile instanceof TrapezoidVelocityProfile) {
+            TrapezoidVelocityProfile trapezoidProfile = (TrapezoidVelocityProfile) profile;
+
+            output.writeByte(PathLibrary.TRAPEZOID_PROFILE);
+            writeDoubles(output, trapezoidProfile.getDistances());
+            writeDoubles(output, trapezoidProfile.getVelocities());
+            writeDoubles(output, trapezoidProfile.getSlopes());
+        } else if (profile instanceof SampledVelocityProfile) {
+            SampledVelocityProfile sampledProfile = (SampledVelocityProfile) profile;
+
+            output.writeByte(PathLibrary.SAMPLED_PROFILE);
+            output.writeDouble(sampledProfile.getResolution());
+            output.writeDouble(sampledProfile.getLength());
+            writeDoubles(output, sampledProfile.getVelocities());
+        } else if (profile instanceof SCurveVelocityProfile) {
+            SCurveVelocityProfile sCurveProfile = (SCurveVelocityProfile) profile;
+
+            output.writeByte(PathLibrary.S_CURVE_PROFILE);
+            writeDoubles(output, sCurveProfile.getStarts());
+            writeDoubles(output, sCurveProfile.getConstants());
+            writeDoubles(output, sCurveProfile.getLinears());
+            writeDoubles(output, sCurveProfile.getQuadratics());
+        } else {
+            throw new IOException("Path library can't store velocity profiles of type " + profile.getClass().getName());
+        }
+
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writePoints(DataOutputStream output, List<Point> points) throws IOException {
+        output.writeInt(points.size());
+        for (Point point : points) {
+            output.writeDouble(point.getX());
+            output.writeDouble(point.getY());
+        }
+    }
+
+    private static void writeDoubles(DataOutputStream output, double[] values) throws IOException {
+        output.writeInt(values.length);
+        for (double value : values) {
+            output.writeDouble(value);
+        }
+    }
+
+    private static void writeInts(DataOutputStream output, int[] values) throws IOException {
+        output.writeInt(values.length);
+        for (int value : values) {
+            output.writeInt(value);
+        }
+    }
+}
@@ -4,7 +4,7 @@ import org.uacr.purepursuit.PathUtil;
 import org.uacr.purepursuit.math.Line;
 import org.uacr.purepursuit.math.Point;
 import org.uacr.purepursuit.math.Pose2d;
-import org.uacr.purepursuit.math.Vector;
+import org.uacr.purepursuit.math.VectorMath;
 
 import java.util.*;
 
@@ -12,8 +12,10 @@ public class LineSegment extends Segment {
 
     private final List<Line> fLines;
 
-    private int mCurrentLineIndex;
-    private boolean mIsDone;
+    /**
+     * The distance along the segment each line starts at, with the length of the segment as the last value
+     */
+    private final double[] fLineDistances;
 
     public LineSegment(List<Point> points) {
         fLines = new ArrayList<>();
@@ -22,32 +24,60 @@ public class LineSegment extends Segment {
             fLines.add(new Line(points.get(p), points.get(p + 1)));
         }
 
-        mCurrentLineIndex = 0;
-        mIsDone = false;
+        fLineDistances = new double[fLines.size() + 1];
+        for (int l = 0; l < fLines.size(); l++) {
+            fLineDistances[l + 1] = fLineDistances[l] + fLines.get(l).length();
+        }
     }
 
     public LineSegment(Point... points) {
         this(Arrays.asList(points));
     }
 
-    public Point getLookaheadPoint(Pose2d currentPose) {
-        if (fLines.size() < 1 || mCurrentLineIndex > fLines.size()) {
+    /**
+     * @return the points the segment was created from
+     */
+    public List<Point> getPoints() {
+        List<Point> points = new ArrayList<>();
+
+        for (Line line : fLines) {
+            points.add(line.initial());
+        }
+
+        if (!fLines.isEmpty()) {
+            points.add(fLines.get(fLines.size() - 1).terminal());
+        }
+
+        return points;
+    }
+
+    /**
+     * The cursor's index is the line the lookahead point is on, it moves on to the next line
+     * once the lookahead circle reaches past the end of the current one
+     */
+    @Override
+    public Point getLookaheadPoint(SegmentCursor cursor, Pose2d currentPose, double lookaheadDistance) {
+        int lineIndex = cursor.getIndex();
+
+        if (fLines.size() < 1 || lineIndex > fLines.size()) {
             return null;
         }
 
         Point lookaheadPoint = null;
 
-        while (mCurrentLineIndex < fLines.size()) {
-            lookaheadPoint = getCorrectIntersection(currentPose, fLines.get(mCurrentLineIndex));
+        while (lineIndex < fLines.size()) {
+            lookaheadPoint = getCorrectIntersection(currentPose, fLines.get(lineIndex), lookaheadDistance);
             if (lookaheadPoint != null) {
                 break;
             }
-            if (mCurrentLineIndex >= fLines.size() - 1) {
+            if (lineIndex >= fLines.size() - 1) {
                 break;
             }
-            mCurrentLineIndex++;
+            lineIndex++;
         }
 
+        cursor.setIndex(lineIndex);
+
         if (lookaheadPoint == null) {
             lookaheadPoint = fLines.get(fLines.size() - 1).terminal();
         }
@@ -56,54 +86,58 @@ public class LineSegment extends Segment {
     }
 
     @Override
-    public double getDistance(Pose2d currentPose) {
-        double distance = 0.0;
+    public double getDistance(SegmentCursor cursor, Pose2d currentPose) {
+        int lineIndex = Math.min(cursor.getIndex(), fLines.size() - 1);
+        Line currentLine = fLines.get(lineIndex);
 
-        for (int l = mCurrentLineIndex - 1; l < mCurrentLineIndex; l++) {
-            distance += fLines.get(mCurrentLineIndex).length();
-        }
-
-        return distance + fLines.get(mCurrentLineIndex).distanceFromInitial(fLines.get(mCurrentLineIndex).closestPointInSection(currentPose));
+        return fLineDistances[lineIndex] + PathUtil.limit(currentLine.project(currentPose), 0, currentLine.length());
     }
 
-    private Point getCorrectIntersection(Pose2d currentPose, Line line) {
-        Point correctIntersection = null;
-
-        Point closestPoint = line.closestPoint(currentPose);
-        double closestPointDistance = closestPoint.distance(currentPose);
-
-        // If the distance from the robot to the closest point on the line is greater than the lookahead distance,
-        // then use the closest point on the line as the intersection
-        if (closestPointDistance >= getLookaheadDistance()) {
-            correctIntersection = closestPoint;
-        } else {
-            // Calculate the distance from the closest point to the intersection with the pythagorean theorem
-            double lineIntersectionDistance = Math.sqrt(Math.pow(getLookaheadDistance(), 2) - Math.pow(closestPointDistance, 2));
-
-            // Project the distance of the intersection from the current point in the direction of the line segment
-            correctIntersection = closestPoint.add(new Vector(lineIntersectionDistance, line.angle()));
+    /**
+     * Finds where the lookahead circle around the robot leaves the line, or the closest point on the line if the circle doesn't reach it.
+     * Points are found by their parameter along the line, the distance from its initial point.
+     *
+     * @return the intersection, or null if it is past the end of the line
+     */
+    private Point getCorrectIntersection(Pose2d currentPose, Line line, double lookaheadDistance) {
+        double closestPointParameter = line.project(currentPose);
+
+        double closestPointX = line.initial().getX() + closestPointParameter * line.getUnitX();
+        double closestPointY = line.initial().getY() + closestPointParameter * line.getUnitY();
+        double closestPointDistance = VectorMath.distance(closestPointX, closestPointY, currentPose.getX(), currentPose.getY());
+
+        double intersectionParameter = closestPointParameter;
+
+        // If the distance from the robot to the closest point on the line is less than the lookahead distance,
+        // move forward along the line by the distance from the closest point to the intersection, from the pythagorean theorem
+        if (closestPointDistance < lookaheadDistance) {
+            intersectionParameter += Math.sqrt(lookaheadDistance * lookaheadDistance - closestPointDistance * closestPointDistance);
         }
 
-        // If the intersection point exists but is beyond the end of the line segment,
-        // set it too null to move to the next segment
-        if (Math.abs(PathUtil.angleDifference(line.angle(),
-                        new Vector(line.terminal().subtract(correctIntersection)).angle())) > 0.1) {
-            // If the angle from the terminal point of the line segment to the intersection is the same as the angle
-            // of the line then the intersection is beyond the end of the line
-
-            correctIntersection = null;
+        // If the intersection is beyond the end of the line segment, return null to move to the next line
+        if (intersectionParameter > line.length()) {
+            return null;
         }
 
-        return correctIntersection;
+        return line.pointFromDistance(intersectionParameter);
     }
 
     public double length() {
-        return fLines.stream().mapToDouble(Line::length).sum();
+        return fLineDistances[fLines.size()];
     }
 
+    /**
+     * The segment is done once the lookahead point is on the last line and the robot has passed the end of it
+     */
     @Override
-    public boolean isDone(Pose2d currentPose) {
-        return mIsDone;
+    public boolean isDone(SegmentCursor cursor, Pose2d currentPose) {
+        if (fLines.isEmpty()) {
+            return true;
+        }
+
+        Line lastLine = fLines.get(fLines.size() - 1);
+
+        return cursor.getIndex() >= fLines.size() - 1 && lastLine.project(currentPose) >= lastLine.length();
     }
 
     @Override
@@ -120,10 +154,8 @@ public class LineSegment extends Segment {
     public Map<Double, Double> getSpeedReductions() {
         Map<Double, Double> speedReductions = new HashMap<>();
 
-        double distance = 0.0;
-
         for (int p = 0; p < fLines.size() - 1; p++) {
-            distance += fLines.get(p).length();
+            double distance = fLineDistances[p + 1];
 
             // Calculate the amount of speed reduction
             // A 90 degree angle or greater will cause a full speed reduction to the minimum path speed
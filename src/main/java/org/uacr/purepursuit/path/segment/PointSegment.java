@@ -1,13 +1,15 @@
 package org.uacr.purepursuit.path.segment;
 
+import org.uacr.purepursuit.PathUtil;
 import org.uacr.purepursuit.math.Point;
 import org.uacr.purepursuit.math.Pose2d;
-import org.uacr.purepursuit.math.Vector;
+import org.uacr.purepursuit.math.VectorMath;
 import org.uacr.purepursuit.path.point.PathPoint;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -19,9 +21,9 @@ public class PointSegment extends Segment {
     private double mPointSpacing = 1;
 
     /**
-     * The amount of smoothing to be done on the path (larger number = more smoothing)
+     * Smooths the filled points, holds the amount of smoothing to be done on the path (larger number = more smoothing)
      */
-    private double mPathSmoothing = 0.5;
+    private final PointSmoother fSmoother = new PointSmoother();
 
     /**
      * Waypoints along path specified by behavior
@@ -29,10 +31,32 @@ public class PointSegment extends Segment {
     private List<Point> mPoints;
 
     /**
-     * All the points along the path, created from the waypoints (fPoints)
+     * The x and y values of the filled and smoothed points
+     */
+    private double[] mXs = new double[0];
+    private double[] mYs = new double[0];
+
+    /**
+     * The distance along the path of each filled and smoothed point
+     */
+    private double[] mDistances = new double[0];
+
+    /**
+     * The index of the filled point each waypoint was placed at
+     */
+    private int[] mWaypointIndices = new int[0];
+
+    /**
+     * Number of points ahead of the last closest and lookahead points that are searched each update
+     */
+    private int mSearchWindow = 64;
+
+    /**
+     * All the points along the path, created from the waypoints (fPoints).
+     * Set last when the segment is built, so a thread that sees it also sees the rest of the built points.
      */
     @Nullable
-    private List<PathPoint> mPath;
+    private volatile List<PathPoint> mPath;
 
     /**
      * Pass in an ArrayList of waypoints
@@ -49,7 +73,37 @@ public class PointSegment extends Segment {
     }
 
     /**
-     * Getters and Setters for path specific creation and following data
+     * Creates a segment from points that were already filled and smoothed, for example a segment loaded from a file
+     *
+     * @param waypoints       the waypoints the points were created from
+     * @param pointSpacing    the spacing the points were filled with
+     * @param pathSmoothing   the smoothing the points were smoothed with
+     * @param xs              the x values of the points
+     * @param ys              the y values of the points
+     * @param distances       the distance along the path of each point
+     * @param waypointIndices the index of the point each waypoint was placed at
+     * @return a built segment
+     */
+    public static PointSegment createBuilt(List<Point> waypoints, double pointSpacing, double pathSmoothing,
+                                           double[] xs, double[] ys, double[] distances, int[] waypointIndices) {
+        if (ys.length != xs.length || distances.length != xs.length || waypointIndices.length != waypoints.size()) {
+            throw new IllegalArgumentException("Every point needs an x, y and distance and every waypoint needs an index");
+        }
+
+        PointSegment segment = new PointSegment(new ArrayList<>(waypoints));
+        segment.setPointSpacing(pointSpacing);
+        segment.setPathSmoothing(pathSmoothing);
+        segment.mXs = xs.clone();
+        segment.mYs = ys.clone();
+        segment.mDistances = distances.clone();
+        segment.mWaypointIndices = waypointIndices.clone();
+        segment.createPath();
+        return segment;
+    }
+
+    /**
+     * Getters and Setters for path specific creation and following data.
+     * The setters throw an IllegalStateException once the segment is built, since a built segment may be shared by several paths and robots.
      */
 
     public double getPointSpacing() {
@@ -57,15 +111,78 @@ public class PointSegment extends Segment {
     }
 
     public void setPointSpacing(double pointSpacing) {
+        checkNotBuilt();
         mPointSpacing = pointSpacing;
     }
 
     public double getPathSmoothing() {
-        return mPathSmoothing;
+        return fSmoother.getSmoothing();
     }
 
     public void setPathSmoothing(double pathSmoothing) {
-        mPathSmoothing = pathSmoothing;
+        checkNotBuilt();
+        fSmoother.setSmoothing(pathSmoothing);
+    }
+
+    /**
+     * @return the smoother used to build the path, to change how it converges or when it runs in parallel,
+     * or a copy of it once the segment is built
+     */
+    public PointSmoother getSmoother() {
+        return isBuilt() ? fSmoother.copy() : fSmoother;
+    }
+
+    public int getSearchWindow() {
+        return mSearchWindow;
+    }
+
+    public void setSearchWindow(int searchWindow) {
+        checkNotBuilt();
+        mSearchWindow = Math.max(searchWindow, 1);
+    }
+
+    /**
+     * @return whether the waypoints have been turned into the points of the path
+     */
+    public boolean isBuilt() {
+        return mPath != null;
+    }
+
+    private void checkNotBuilt() {
+        if (isBuilt()) {
+            throw new IllegalStateException("A point segment can't be changed once it is built");
+        }
+    }
+
+    /**
+     * @return the waypoints the segment was created from
+     */
+    public List<Point> getWaypoints() {
+        return new ArrayList<>(mPoints);
+    }
+
+    /**
+     * Getters for copies of the built points, builds the segment if it hasn't been built
+     */
+
+    public double[] getXs() {
+        build();
+        return mXs.clone();
+    }
+
+    public double[] getYs() {
+        build();
+        return mYs.clone();
+    }
+
+    public double[] getDistances() {
+        build();
+        return mDistances.clone();
+    }
+
+    public int[] getWaypointIndices() {
+        build();
+        return mWaypointIndices.clone();
     }
 
     /**
@@ -120,6 +237,7 @@ public class PointSegment extends Segment {
 
     /**
      * Turns all the waypoints (fPoints) into a path (fPath).
+     * The segment is only built once even if several threads try to build it at the same time.
      */
     public void build() {
 
@@ -127,6 +245,14 @@ public class PointSegment extends Segment {
             return;
         }
 
+        synchronized (this) {
+            if (mPath == null) {
+                buildPath();
+            }
+        }
+    }
+
+    private void buildPath() {
         if (mPoints.size() == 0) {
             mPath = new ArrayList<>();
             return;
@@ -135,97 +261,268 @@ public class PointSegment extends Segment {
         fill();
 
         smooth();
+
+        mDistances = new double[mXs.length];
+        for (int p = 1; p < mXs.length; p++) {
+            mDistances[p] = mDistances[p - 1] + VectorMath.distance(mXs[p - 1], mYs[p - 1], mXs[p], mYs[p]);
+        }
+
+        createPath();
+    }
+
+    private void createPath() {
+        List<PathPoint> path = new ArrayList<>(mXs.length);
+        for (int p = 0; p < mXs.length; p++) {
+            path.add(new PathPoint(mXs[p], mYs[p]));
+        }
+        mPath = path;
     }
 
     /**
      * Fills the spaces between waypoints (fPoints) with a point fPointSpacing inches.
      */
     private void fill() {
-        ArrayList<Point> newPoints = new ArrayList<>();
+        int count = 1;
+        for (int s = 1; s < mPoints.size(); s++) {
+            count += (int) Math.ceil(mPoints.get(s - 1).distance(mPoints.get(s)) / mPointSpacing);
+        }
 
+        mXs = new double[count];
+        mYs = new double[count];
+        mWaypointIndices = new int[mPoints.size()];
+
+        int index = 0;
         for (int s = 1; s < mPoints.size(); s++) {
-            Vector vector = new Vector(mPoints.get(s - 1), mPoints.get(s));
+            mWaypointIndices[s - 1] = index;
+
+            Point initial = mPoints.get(s - 1);
+            Point terminal = mPoints.get(s);
+
+            double deltaX = terminal.getX() - initial.getX();
+            double deltaY = terminal.getY() - initial.getY();
+            double magnitude = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
 
-            int numPointsFit = (int) Math.ceil(vector.magnitude() / mPointSpacing);
+            int numPointsFit = (int) Math.ceil(magnitude / mPointSpacing);
 
-            vector = vector.normalize().scale(mPointSpacing);
+            double stepX = deltaX / magnitude * mPointSpacing;
+            double stepY = deltaY / magnitude * mPointSpacing;
 
             for (int i = 0; i < numPointsFit; i++) {
-                newPoints.add(mPoints.get(s - 1).add(vector.scale(i)));
+                mXs[index] = initial.getX() + stepX * i;
+                mYs[index] = initial.getY() + stepY * i;
+                index++;
             }
         }
 
-        newPoints.add(mPoints.get(mPoints.size() - 1));
-
-        mPoints = newPoints;
+        mWaypointIndices[mPoints.size() - 1] = index;
+        mXs[index] = mPoints.get(mPoints.size() - 1).getX();
+        mYs[index] = mPoints.get(mPoints.size() - 1).getY();
     }
 
     /**
      * Smooths the straight lines of points into a curved path.
      */
     private void smooth() {
-        double change = 0.5;
-        double changedPoints = 1;
-        while (change / changedPoints >= 0.01) {
-            change = 0;
-            changedPoints = 0;
-
-            List<Point> newPoints = new ArrayList<>(mPoints);
-
-            for (int i = 1; i < mPoints.size() - 1; i++) {
-                Point point = mPoints.get(i);
-
-                Vector middle = new Vector(mPoints.get(i + 1).subtract(mPoints.get(i - 1)));
+        fSmoother.smooth(mXs, mYs, mXs.length);
+    }
 
-                middle = new Vector(mPoints.get(i - 1).add(middle.normalize().scale(middle.magnitude() / 2)));
+    /**
+     * Moves the cursor's closest point forward to the point closest to the robot within the search window
+     *
+     * @return the index of the closest point
+     */
+    private int updateClosestIndex(SegmentCursor cursor, Pose2d currentPose) {
+        int first = Math.min(cursor.getIndex(), mXs.length - 1);
+        int last = Math.min(mXs.length - 1, first + mSearchWindow);
 
-                Vector delta = new Vector(middle.subtract(point));
+        int closestIndex = first;
+        double closestDistance = Double.POSITIVE_INFINITY;
 
-                Point newPoint = point.add(delta.normalize().scale(delta.magnitude() * mPathSmoothing));
+        for (int p = first; p <= last; p++) {
+            double deltaX = mXs[p] - currentPose.getX();
+            double deltaY = mYs[p] - currentPose.getY();
+            double distance = deltaX * deltaX + deltaY * deltaY;
 
-                if (!Double.isNaN(newPoint.getX()) && !Double.isNaN(newPoint.getY())) {
-                    newPoints.set(i, newPoint);
-                    change += point.distance(newPoint);
-                    changedPoints++;
-                }
+            if (distance < closestDistance) {
+                closestDistance = distance;
+                closestIndex = p;
             }
-
-            mPoints = newPoints;
         }
+
+        cursor.setIndex(closestIndex);
+        return closestIndex;
+    }
+
+    private double distanceFromPose(int index, Pose2d currentPose) {
+        return VectorMath.distance(currentPose.getX(), currentPose.getY(), mXs[index], mYs[index]);
     }
 
     @Override
     public double length() {
-        return 0;
+        build();
+
+        return mDistances.length > 0 ? mDistances[mDistances.length - 1] : 0;
     }
 
+    /**
+     * Finds where the lookahead circle around the robot leaves the path.
+     * Only the points within the search window ahead of the cursor's closest and lookahead points are checked,
+     * so the cost doesn't depend on the length of the path.
+     *
+     * @param cursor            the robot's progress through the segment, its index is the closest point
+     * @param currentPose       the pose of the robot
+     * @param lookaheadDistance the distance ahead of the robot the point is
+     * @return the lookahead point
+     */
     @Override
-    public Point getLookaheadPoint(Pose2d currentPose) {
-        return null;
+    @Nullable
+    public Point getLookaheadPoint(SegmentCursor cursor, Pose2d currentPose, double lookaheadDistance) {
+        build();
+
+        if (mXs.length == 0) {
+            return null;
+        }
+
+        int closestIndex = updateClosestIndex(cursor, currentPose);
+
+        // If the robot is further from the path than the lookahead distance drive back to the closest point
+        if (distanceFromPose(closestIndex, currentPose) >= lookaheadDistance) {
+            return new Point(mXs[closestIndex], mYs[closestIndex]);
+        }
+
+        int index = Math.min(Math.max(cursor.getLookaheadIndex(), closestIndex), mXs.length - 1);
+        int last = Math.min(mXs.length - 1, index + mSearchWindow);
+
+        while (index < last && distanceFromPose(index + 1, currentPose) < lookaheadDistance) {
+            index++;
+        }
+
+        cursor.setLookaheadIndex(index);
+
+        if (index == mXs.length - 1 || distanceFromPose(index + 1, currentPose) < lookaheadDistance) {
+            return new Point(mXs[index], mYs[index]);
+        }
+
+        double t = circleExitParameter(index, currentPose, lookaheadDistance);
+
+        return new Point(mXs[index] + (mXs[index + 1] - mXs[index]) * t, mYs[index] + (mYs[index + 1] - mYs[index]) * t);
+    }
+
+    /**
+     * @return how far along the line from the point at index to the next point the lookahead circle is left, from 0 to 1
+     */
+    private double circleExitParameter(int index, Pose2d currentPose, double lookaheadDistance) {
+        double deltaX = mXs[index + 1] - mXs[index];
+        double deltaY = mYs[index + 1] - mYs[index];
+        double offsetX = mXs[index] - currentPose.getX();
+        double offsetY = mYs[index] - currentPose.getY();
+
+        double a = deltaX * deltaX + deltaY * deltaY;
+        double b = 2 * (offsetX * deltaX + offsetY * deltaY);
+        double c = offsetX * offsetX + offsetY * offsetY - lookaheadDistance * lookaheadDistance;
+
+        double discriminant = b * b - 4 * a * c;
+
+        if (a == 0 || discriminant < 0) {
+            return 0;
+        }
+
+        return PathUtil.limit((-b + Math.sqrt(discriminant)) / (2 * a), 0, 1);
     }
 
     @Override
-    public double getDistance(Pose2d currentPose) {
-        return 0;
+    public double getDistance(SegmentCursor cursor, Pose2d currentPose) {
+        build();
+
+        if (mXs.length < 2) {
+            return 0;
+        }
+
+        int index = Math.min(updateClosestIndex(cursor, currentPose), mXs.length - 2);
+        double t = projectOnto(index, currentPose);
+
+        if (t <= 0 && index > 0) {
+            index--;
+            t = projectOnto(index, currentPose);
+        }
+
+        return mDistances[index] + (mDistances[index + 1] - mDistances[index]) * t;
+    }
+
+    /**
+     * @return how far along the line from the point at index to the next point the robot is, from 0 to 1
+     */
+    private double projectOnto(int index, Pose2d currentPose) {
+        double t = VectorMath.projectionParameter(currentPose.getX(), currentPose.getY(), mXs[index], mYs[index],
+                mXs[index + 1] - mXs[index], mYs[index + 1] - mYs[index]);
+
+        return Double.isNaN(t) ? 0 : PathUtil.limit(t, 0, 1);
     }
 
+    /**
+     * The segment is done once the closest point to the robot is the last point
+     */
     @Override
-    public boolean isDone(Pose2d currentPose) {
-        return false;
+    public boolean isDone(SegmentCursor cursor, Pose2d currentPose) {
+        build();
+
+        if (mXs.length == 0) {
+            return true;
+        }
+
+        return updateClosestIndex(cursor, currentPose) == mXs.length - 1;
     }
 
     @Override
     public double getInitialAngle() {
-        return 0;
+        build();
+
+        return mXs.length < 2 ? 0 : VectorMath.angle(mXs[1] - mXs[0], mYs[1] - mYs[0]);
     }
 
     @Override
     public double getFinalAngle() {
-        return 0;
+        build();
+
+        int last = mXs.length - 1;
+
+        return mXs.length < 2 ? 0 : VectorMath.angle(mXs[last] - mXs[last - 1], mYs[last] - mYs[last - 1]);
     }
 
+    /**
+     * Speed reductions are placed where the smoothed path passes each waypoint,
+     * based on the angle between the waypoints the same way as a line segment
+     */
     @Override
     public Map<Double, Double> getSpeedReductions() {
-        return null;
+        build();
+
+        Map<Double, Double> speedReductions = new HashMap<>();
+
+        for (int w = 1; w < mPoints.size() - 1; w++) {
+            Point previous = mPoints.get(w - 1);
+            Point current = mPoints.get(w);
+            Point next = mPoints.get(w + 1);
+
+            if (previous.equals(current) || current.equals(next)) {
+                continue;
+            }
+
+            double initialAngle = VectorMath.angle(current.getX() - previous.getX(), current.getY() - previous.getY());
+            double finalAngle = VectorMath.angle(next.getX() - current.getX(), next.getY() - current.getY());
+
+            // A 90 degree angle or greater will cause a full speed reduction to the minimum path speed
+            double speedReduction = Math.abs(PathUtil.angleWrap(finalAngle - initialAngle)) / 90;
+
+            if (0 < speedReduction) {
+                speedReductions.put(mDistances[mWaypointIndices[w]], Math.min(speedReduction, 1));
+            }
+        }
+
+        return speedReductions;
+    }
+
+    public String toString() {
+        return mPoints.toString();
     }
 }
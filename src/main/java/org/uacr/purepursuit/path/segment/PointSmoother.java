@@ -0,0 +1,311 @@
+package org.uacr.purepursuit.path.segment;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Smooths a filled line of points into a curved path.
+ * Every pass moves each point (except the ends) part of the way towards the midpoint of its neighbors,
+ * using the points from the previous pass, until the points stop moving.
+ * Points are stored as separate x and y arrays so a pass doesn't create any objects,
+ * and large sets of points can be split into chunks that are smoothed in parallel.
+ */
+
+public class PointSmoother {
+
+    /**
+     * The amount each point moves towards the midpoint of its neighbors every pass (larger number = more smoothing)
+     */
+    private double mSmoothing = 0.5;
+
+    /**
+     * Smoothing stops once the change measured by the convergence criterion is below the tolerance (inches)
+     */
+    private double mTolerance = 0.01;
+
+    private ConvergenceCriterion mConvergenceCriterion = ConvergenceCriterion.AVERAGE_CHANGE;
+
+    private int mMaxIterations = Integer.MAX_VALUE;
+
+    /**
+     * Point sets with at least this many points are smoothed in parallel
+     */
+    private int mParallelThreshold = 50000;
+
+    /**
+     * Number of points each parallel task smooths
+     */
+    private int mChunkSize = 8192;
+
+    /**
+     * The pool used for parallel smoothing, or null for the common pool
+     */
+    @Nullable
+    private ForkJoinPool mPool = null;
+
+    /**
+     * Getters and Setters for the smoothing configuration
+     */
+
+    public double getSmoothing() {
+        return mSmoothing;
+    }
+
+    public void setSmoothing(double smoothing) {
+        mSmoothing = smoothing;
+    }
+
+    public double getTolerance() {
+        return mTolerance;
+    }
+
+    public void setTolerance(double tolerance) {
+        mTolerance = tolerance;
+    }
+
+    public ConvergenceCriterion getConvergenceCriterion() {
+        return mConvergenceCriterion;
+    }
+
+    public void setConvergenceCriterion(ConvergenceCriterion convergenceCriterion) {
+        mConvergenceCriterion = convergenceCriterion;
+    }
+
+    public int getMaxIterations() {
+        return mMaxIterations;
+    }
+
+    public void setMaxIterations(int maxIterations) {
+        mMaxIterations = maxIterations;
+    }
+
+    public int getParallelThreshold() {
+        return mParallelThreshold;
+    }
+
+    public void setParallelThreshold(int parallelThreshold) {
+        mParallelThreshold = parallelThreshold;
+    }
+
+    public int getChunkSize() {
+        return mChunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        mChunkSize = Math.max(chunkSize, 1);
+    }
+
+    @Nullable
+    public ForkJoinPool getPool() {
+        return mPool;
+    }
+
+    public void setPool(@Nullable ForkJoinPool pool) {
+        mPool = pool;
+    }
+
+    /**
+     * @return a smoother with the same configuration
+     */
+    public PointSmoother copy() {
+        PointSmoother smoother = new PointSmoother();
+        smoother.mSmoothing = mSmoothing;
+        smoother.mTolerance = mTolerance;
+        smoother.mConvergenceCriterion = mConvergenceCriterion;
+        smoother.mMaxIterations = mMaxIterations;
+        smoother.mParallelThreshold = mParallelThreshold;
+        smoother.mChunkSize = mChunkSize;
+        smoother.mPool = mPool;
+        return smoother;
+    }
+
+    /**
+     * Smooths the first count points of the arrays in place
+     *
+     * @param xs    the x values of the points
+     * @param ys    the y values of the points
+     * @param count the number of points
+     * @return the number of passes made
+     */
+    public int smooth(double[] xs, double[] ys, int count) {
+        if (count < 3) {
+            return 0;
+        }
+
+        double[] currentXs = xs;
+        double[] currentYs = ys;
+        // The ends never move so the buffers only need them copied once
+        double[] nextXs = xs.clone();
+        double[] nextYs = ys.clone();
+
+        List<SmoothChunk> chunks = null;
+        RecursiveAction pass = null;
+        if (count >= mParallelThreshold) {
+            chunks = new ArrayList<>();
+            for (int start = 1; start < count - 1; start += mChunkSize) {
+                chunks.add(new SmoothChunk(start, Math.min(start + mChunkSize, count - 1)));
+            }
+
+            List<SmoothChunk> passChunks = chunks;
+            pass = new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(passChunks);
+                }
+            };
+        }
+
+        ForkJoinPool pool = mPool != null ? mPool : ForkJoinPool.commonPool();
+
+        double change = 0.5;
+        double maxChange = Double.POSITIVE_INFINITY;
+        int changedPoints = 1;
+        int iterations = 0;
+
+        while (!isConverged(change, maxChange, changedPoints) && iterations < mMaxIterations) {
+            change = 0;
+            maxChange = 0;
+            changedPoints = 0;
+
+            if (chunks == null) {
+                SmoothChunk chunk = new SmoothChunk(1, count - 1);
+                chunk.smooth(currentXs, currentYs, nextXs, nextYs, mSmoothing);
+
+                change = chunk.mChange;
+                maxChange = chunk.mMaxChange;
+                changedPoints = chunk.mChangedPoints;
+            } else {
+                for (SmoothChunk chunk : chunks) {
+                    chunk.reinitialize();
+                    chunk.set(currentXs, currentYs, nextXs, nextYs, mSmoothing);
+                }
+
+                pass.reinitialize();
+                pool.invoke(pass);
+
+                // Add the chunks up in order so the result doesn't depend on scheduling
+                for (SmoothChunk chunk : chunks) {
+                    change += chunk.mChange;
+                    maxChange = Math.max(maxChange, chunk.mMaxChange);
+                    changedPoints += chunk.mChangedPoints;
+                }
+            }
+
+            double[] swapXs = currentXs;
+            double[] swapYs = currentYs;
+            currentXs = nextXs;
+            currentYs = nextYs;
+            nextXs = swapXs;
+            nextYs = swapYs;
+
+            iterations++;
+        }
+
+        if (currentXs != xs) {
+            System.arraycopy(currentXs, 0, xs, 0, count);
+            System.arraycopy(currentYs, 0, ys, 0, count);
+        }
+
+        return iterations;
+    }
+
+    private boolean isConverged(double change, double maxChange, int changedPoints) {
+        switch (mConvergenceCriterion) {
+            case MAX_CHANGE:
+                return !(maxChange >= mTolerance);
+            case AVERAGE_CHANGE:
+            default:
+                return !(change / changedPoints >= mTolerance);
+        }
+    }
+
+    public enum ConvergenceCriterion {
+        /**
+         * Stops when the average distance the points moved in the last pass is below the tolerance
+         */
+        AVERAGE_CHANGE,
+        /**
+         * Stops when no point moved further than the tolerance in the last pass
+         */
+        MAX_CHANGE
+    }
+
+    /**
+     * Smooths the points from start (inclusive) to end (exclusive) for one pass
+     */
+    private static class SmoothChunk extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int fStart;
+        private final int fEnd;
+
+        private double[] mXs;
+        private double[] mYs;
+        private double[] mNextXs;
+        private double[] mNextYs;
+        private double mSmoothing;
+
+        private double mChange;
+        private double mMaxChange;
+        private int mChangedPoints;
+
+        private SmoothChunk(int start, int end) {
+            fStart = start;
+            fEnd = end;
+        }
+
+        private void set(double[] xs, double[] ys, double[] nextXs, double[] nextYs, double smoothing) {
+            mXs = xs;
+            mYs = ys;
+            mNextXs = nextXs;
+            mNextYs = nextYs;
+            mSmoothing = smoothing;
+        }
+
+        @Override
+        protected void compute() {
+            smooth(mXs, mYs, mNextXs, mNextYs, mSmoothing);
+        }
+
+        private void smooth(double[] xs, double[] ys, double[] nextXs, double[] nextYs, double smoothing) {
+            double change = 0;
+            double maxChange = 0;
+            int changedPoints = 0;
+
+            for (int i = fStart; i < fEnd; i++) {
+                double x = xs[i];
+                double y = ys[i];
+
+                double middleX = xs[i - 1] + (xs[i + 1] - xs[i - 1]) * 0.5;
+                double middleY = ys[i - 1] + (ys[i + 1] - ys[i - 1]) * 0.5;
+
+                double deltaX = (middleX - x) * smoothing;
+                double deltaY = (middleY - y) * smoothing;
+
+                double newX = x + deltaX;
+                double newY = y + deltaY;
+
+                if (!Double.isNaN(newX) && !Double.isNaN(newY)) {
+                    nextXs[i] = newX;
+                    nextYs[i] = newY;
+
+                    double distance = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+                    change += distance;
+                    maxChange = Math.max(maxChange, distance);
+                    changedPoints++;
+                } else {
+                    nextXs[i] = x;
+                    nextYs[i] = y;
+                }
+            }
+
+            mChange = change;
+            mMaxChange = maxChange;
+            mChangedPoints = changedPoints;
+        }
+    }
+}
@@ -5,18 +5,37 @@ import org.uacr.purepursuit.math.Pose2d;
 
 import java.util.Map;
 
+/**
+ * A segment is never changed once it is built, the progress of a robot following it is kept in a SegmentCursor,
+ * so one segment can be followed by any number of robots on any number of threads.
+ * The deprecated methods that only take the robot's pose follow the segment with a cursor of its own, for code written before cursors.
+ */
+
 public abstract class Segment {
 
+    /**
+     * The progress and lookahead distance of the deprecated methods that only take the robot's pose
+     */
+    private final SegmentCursor fDefaultCursor;
     private double mLookaheadDistance;
 
     public Segment() {
+        fDefaultCursor = new SegmentCursor();
         mLookaheadDistance = 15;
     }
 
+    /**
+     * @deprecated pass the lookahead distance to {@link #getLookaheadPoint(SegmentCursor, Pose2d, double)}
+     */
+    @Deprecated
     public void setLookaheadDistance(double lookaheadDistance) {
         mLookaheadDistance = lookaheadDistance;
     }
 
+    /**
+     * @deprecated pass the lookahead distance to {@link #getLookaheadPoint(SegmentCursor, Pose2d, double)}
+     */
+    @Deprecated
     public double getLookaheadDistance() {
         return mLookaheadDistance;
     }
@@ -26,23 +45,57 @@ public abstract class Segment {
      */
     public abstract double length();
 
-    public abstract Point getLookaheadPoint(Pose2d currentPose);
+    /**
+     * Finds the point the robot should drive towards
+     *
+     * @param cursor            the robot's progress through the segment, moved forward as the robot moves
+     * @param currentPose       the pose of the robot
+     * @param lookaheadDistance the distance ahead of the robot the point is
+     * @return the lookahead point
+     */
+    public abstract Point getLookaheadPoint(SegmentCursor cursor, Pose2d currentPose, double lookaheadDistance);
+
+    /**
+     * @deprecated the segment's own cursor can only follow one robot, use {@link #getLookaheadPoint(SegmentCursor, Pose2d, double)}
+     */
+    @Deprecated
+    public Point getLookaheadPoint(Pose2d currentPose) {
+        return getLookaheadPoint(fDefaultCursor, currentPose, mLookaheadDistance);
+    }
 
     /**
      * Calculates the distance along the segment the given pose is
      *
+     * @param cursor      the robot's progress through the segment
      * @param currentPose the pose of the robot
      * @return the distance along the segment the robot is
      */
-    public abstract double getDistance(Pose2d currentPose);
+    public abstract double getDistance(SegmentCursor cursor, Pose2d currentPose);
+
+    /**
+     * @deprecated the segment's own cursor can only follow one robot, use {@link #getDistance(SegmentCursor, Pose2d)}
+     */
+    @Deprecated
+    public double getDistance(Pose2d currentPose) {
+        return getDistance(fDefaultCursor, currentPose);
+    }
 
     /**
      * Determines whether the segment is done based on the robots pose
      *
+     * @param cursor      the robot's progress through the segment
      * @param currentPose the pose of the robot
      * @return whether the segment is finished
      */
-    public abstract boolean isDone(Pose2d currentPose);
+    public abstract boolean isDone(SegmentCursor cursor, Pose2d currentPose);
+
+    /**
+     * @deprecated the segment's own cursor can only follow one robot, use {@link #isDone(SegmentCursor, Pose2d)}
+     */
+    @Deprecated
+    public boolean isDone(Pose2d currentPose) {
+        return isDone(fDefaultCursor, currentPose);
+    }
 
     public abstract double getInitialAngle();
 
@@ -54,4 +107,13 @@ public abstract class Segment {
      * @return a map with the keys being distances of the speed reductions and values being the speed reductions.
      */
     public abstract Map<Double, Double> getSpeedReductions();
+
+    /**
+     * @return this segment, a built segment is never changed so it can be shared instead of copied
+     * @deprecated share the segment and follow it with a {@link SegmentCursor} per robot
+     */
+    @Deprecated
+    public Segment copy() {
+        return this;
+    }
 }
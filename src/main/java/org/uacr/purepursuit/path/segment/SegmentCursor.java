@@ -0,0 +1,52 @@
+package org.uacr.purepursuit.path.segment;
+
+/**
+ * SegmentCursor holds one follower's progress through a segment,
+ * so the segment itself never changes while it is followed and can be shared between followers and threads.
+ * What the indices mean is up to the segment, they start at zero and only move forward while following.
+ */
+
+public class SegmentCursor {
+
+    /**
+     * The line a line segment is following or the point of a point segment closest to the robot
+     */
+    private int mIndex;
+
+    /**
+     * The point of a point segment the lookahead point was last found after
+     */
+    private int mLookaheadIndex;
+
+    public SegmentCursor() {
+        reset();
+    }
+
+    public int getIndex() {
+        return mIndex;
+    }
+
+    public void setIndex(int index) {
+        mIndex = index;
+    }
+
+    public int getLookaheadIndex() {
+        return mLookaheadIndex;
+    }
+
+    public void setLookaheadIndex(int lookaheadIndex) {
+        mLookaheadIndex = lookaheadIndex;
+    }
+
+    /**
+     * Moves the cursor back to the start of the segment
+     */
+    public void reset() {
+        mIndex = 0;
+        mLookaheadIndex = 0;
+    }
+
+    public String toString() {
+        return "Index: " + mIndex + " Lookahead Index: " + mLookaheadIndex;
+    }
+}
@@ -0,0 +1,372 @@
+package org.uacr.purepursuit.path.velocity;
+
+import org.uacr.purepursuit.PathUtil;
+import org.uacr.purepursuit.path.PathConstrains;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * SCurveVelocityProfile is a jerk limited version of {@link TrapezoidVelocityProfile}.
+ * Like the trapezoid profile, acceleration is the change in velocity per distance along the path,
+ * and jerk is the change in that acceleration per distance, so the velocity has no corners.
+ *
+ * The profile is stored as pieces of quadratic polynomials in the distance from the start of the piece.
+ * A lookup finds its bucket in a table of evenly spaced buckets and binary searches the pieces that start in it,
+ * so it takes constant time for evenly sized pieces, never more than logarithmic time for short pieces bunched together, and doesn't allocate.
+ */
+
+public class SCurveVelocityProfile implements VelocityProfile {
+
+    /**
+     * Number of buckets in the lookup table for each piece of the profile
+     */
+    private static final int BUCKETS_PER_PIECE = 4;
+
+    /**
+     * The distance each piece starts at, with the end of the profile as the last value
+     */
+    private final double[] fStarts;
+
+    /**
+     * The velocity of piece p at distance x from its start is fConstants[p] + fLinears[p] * x + fQuadratics[p] * x * x
+     */
+    private final double[] fConstants;
+    private final double[] fLinears;
+    private final double[] fQuadratics;
+
+    private final double fEndVelocity;
+
+    private final double fBucketStart;
+    private final double fInverseBucketSize;
+    private final int[] fBucketPieces;
+
+    /**
+     * Builds the profile through the same stops as {@link TrapezoidVelocityProfile},
+     * a forward and backward pass limit each stop to what the robot can reach from its neighbours,
+     * then between two stops the robot accelerates, holds the highest velocity it can and decelerates,
+     * with the acceleration starting and ending at zero at every stop.
+     *
+     * @param constrains      the velocity, acceleration and jerk constraints, maxJerk must be positive
+     * @param length          the length of the path
+     * @param speedReductions a map with the keys being distances of the speed reductions and values being the speed reductions
+     */
+    public SCurveVelocityProfile(PathConstrains constrains, double length, Map<Double, Double> speedReductions) {
+        this(buildPieces(constrains, length, speedReductions));
+    }
+
+    /**
+     * Creates a profile from pieces that were already built, for example by a profile loaded from a file
+     *
+     * @param starts     the distance each piece starts at, sorted, with the end of the profile as the last value
+     * @param constants  the constant coefficient of each piece
+     * @param linears    the linear coefficient of each piece
+     * @param quadratics the quadratic coefficient of each piece
+     */
+    public SCurveVelocityProfile(double[] starts, double[] constants, double[] linears, double[] quadratics) {
+        this(copyPieces(starts, constants, linears, quadratics));
+    }
+
+    private SCurveVelocityProfile(double[][] pieces) {
+        fStarts = pieces[0];
+        fConstants = pieces[1];
+        fLinears = pieces[2];
+        fQuadratics = pieces[3];
+
+        int pieceCount = fConstants.length;
+        double end = fStarts[pieceCount];
+
+        fEndVelocity = velocityInPiece(pieceCount - 1, end);
+
+        int buckets = pieceCount * BUCKETS_PER_PIECE;
+        double bucketSize = (end - fStarts[0]) / buckets;
+
+        fBucketStart = fStarts[0];
+        fInverseBucketSize = bucketSize > 0 ? 1 / bucketSize : 0;
+        fBucketPieces = new int[buckets];
+
+        int piece = 0;
+        for (int b = 0; b < buckets; b++) {
+            double bucketStart = fBucketStart + b * bucketSize;
+
+            while (piece < pieceCount - 1 && fStarts[piece + 1] <= bucketStart) {
+                piece++;
+            }
+
+            fBucketPieces[b] = piece;
+        }
+    }
+
+    private static double[][] copyPieces(double[] starts, double[] constants, double[] linears, double[] quadratics) {
+        if (constants.length < 1 || linears.length != constants.length || quadratics.length != constants.length || starts.length != constants.length + 1) {
+            throw new IllegalArgumentException("A velocity profile needs at least one piece and one more start than it has pieces");
+        }
+
+        return new double[][]{starts.clone(), constants.clone(), linears.clone(), quadratics.clone()};
+    }
+
+    /**
+     * @return the start, constant, linear and quadratic arrays of the profile's pieces
+     */
+    private static double[][] buildPieces(PathConstrains constrains, double length, Map<Double, Double> speedReductions) {
+        double acceleration = constrains.maxAcceleration;
+        double deceleration = constrains.maxDeceleration;
+        double maxVelocity = constrains.maxVelocity;
+        double jerk = constrains.maxJerk;
+
+        if (!(jerk > 0)) {
+            throw new IllegalArgumentException("An s-curve velocity profile needs a positive max jerk, was " + jerk);
+        }
+
+        double[] reductionDistances = new double[speedReductions.size()];
+        int reductions = 0;
+        for (double reductionDistance : speedReductions.keySet()) {
+            reductionDistances[reductions++] = reductionDistance;
+        }
+        Arrays.sort(reductionDistances);
+
+        double[] stopDistances = new double[reductions + 2];
+        double[] stopVelocities = new double[reductions + 2];
+        int stops = 1;
+
+        stopDistances[0] = 0;
+        stopVelocities[0] = constrains.minVelocity;
+
+        for (int r = 0; r < reductions; r++) {
+            double velocity = PathUtil.interpolate(speedReductions.get(reductionDistances[r]), 0, 1, maxVelocity, constrains.minVelocity);
+            stops = addStop(stopDistances, stopVelocities, stops, reductionDistances[r], velocity);
+        }
+
+        stops = addStop(stopDistances, stopVelocities, stops, length, constrains.minVelocity);
+
+        for (int s = 1; s < stops; s++) {
+            stopVelocities[s] = Math.min(stopVelocities[s], stopVelocities[s - 1] + rampGain(stopDistances[s] - stopDistances[s - 1], acceleration, jerk));
+        }
+
+        for (int s = stops - 2; s >= 0; s--) {
+            stopVelocities[s] = Math.min(stopVelocities[s], stopVelocities[s + 1] + rampGain(stopDistances[s + 1] - stopDistances[s], deceleration, jerk));
+        }
+
+        // Each gap between stops adds at most three acceleration pieces, a max velocity piece and three deceleration pieces
+        Pieces pieces = new Pieces(7 * stops + 1, stopDistances[0]);
+
+        for (int s = 0; s < stops - 1; s++) {
+            double initialVelocity = stopVelocities[s];
+            double finalVelocity = stopVelocities[s + 1];
+            double gap = stopDistances[s + 1] - stopDistances[s];
+
+            double peakVelocity = Math.max(maxVelocity, Math.max(initialVelocity, finalVelocity));
+
+            if (rampDistance(peakVelocity - initialVelocity, acceleration, jerk) + rampDistance(peakVelocity - finalVelocity, deceleration, jerk) > gap) {
+                // The robot starts decelerating before it gets to the max velocity
+                double low = Math.max(initialVelocity, finalVelocity);
+                double high = peakVelocity;
+
+                for (int i = 0; i < 64; i++) {
+                    double middle = (low + high) / 2;
+
+                    if (rampDistance(middle - initialVelocity, acceleration, jerk) + rampDistance(middle - finalVelocity, deceleration, jerk) > gap) {
+                        high = middle;
+                    } else {
+                        low = middle;
+                    }
+                }
+
+                peakVelocity = low;
+            }
+
+            pieces.addRamp(initialVelocity, peakVelocity, acceleration, jerk);
+            double decelerationDistance = rampDistance(peakVelocity - finalVelocity, deceleration, jerk);
+            pieces.add(stopDistances[s + 1] - decelerationDistance - pieces.mEnd, peakVelocity, 0, 0);
+            pieces.addRamp(peakVelocity, finalVelocity, deceleration, jerk);
+
+            // Keeps rounding from moving the stops
+            pieces.mEnd = stopDistances[s + 1];
+        }
+
+        return pieces.toArrays(stopVelocities[stops - 1]);
+    }
+
+    private static int addStop(double[] distances, double[] velocities, int stops, double distance, double velocity) {
+        if (distance <= distances[stops - 1]) {
+            velocities[stops - 1] = Math.min(velocities[stops - 1], velocity);
+            return stops;
+        }
+
+        distances[stops] = distance;
+        velocities[stops] = velocity;
+        return stops + 1;
+    }
+
+    /**
+     * @return the distance it takes to change velocity by the given amount, starting and ending with no acceleration
+     */
+    private static double rampDistance(double velocityChange, double acceleration, double jerk) {
+        if (!(velocityChange > 0)) {
+            return 0;
+        }
+        if (!(acceleration > 0)) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        if (velocityChange >= acceleration * acceleration / jerk) {
+            return velocityChange / acceleration + acceleration / jerk;
+        }
+
+        return 2 * Math.sqrt(velocityChange / jerk);
+    }
+
+    /**
+     * @return the most the velocity can change over the given distance, starting and ending with no acceleration
+     */
+    private static double rampGain(double distance, double acceleration, double jerk) {
+        if (!(acceleration > 0)) {
+            return 0;
+        }
+
+        if (distance >= 2 * acceleration / jerk) {
+            return acceleration * (distance - acceleration / jerk);
+        }
+
+        return jerk * distance * distance / 4;
+    }
+
+    /**
+     * Collects the pieces of the profile as it is built
+     */
+    private static class Pieces {
+
+        private final double[] fStarts;
+        private final double[] fConstants;
+        private final double[] fLinears;
+        private final double[] fQuadratics;
+
+        private int mCount;
+        private double mEnd;
+
+        private Pieces(int capacity, double start) {
+            fStarts = new double[capacity + 1];
+            fConstants = new double[capacity];
+            fLinears = new double[capacity];
+            fQuadratics = new double[capacity];
+
+            mCount = 0;
+            mEnd = start;
+        }
+
+        /**
+         * Adds a piece starting at the end of the last piece, pieces with no length are skipped
+         */
+        private void add(double length, double constant, double linear, double quadratic) {
+            if (!(length > 0)) {
+                return;
+            }
+
+            fStarts[mCount] = mEnd;
+            fConstants[mCount] = constant;
+            fLinears[mCount] = linear;
+            fQuadratics[mCount] = quadratic;
+
+            mCount++;
+            mEnd += length;
+        }
+
+        /**
+         * Adds the pieces that change the velocity from the initial to the final velocity as quickly as the constraints allow
+         */
+        private void addRamp(double initialVelocity, double finalVelocity, double acceleration, double jerk) {
+            double velocityChange = Math.abs(finalVelocity - initialVelocity);
+            double sign = Math.signum(finalVelocity - initialVelocity);
+
+            if (!(velocityChange > 0)) {
+                return;
+            }
+
+            // The highest acceleration reached, lower than the max acceleration if the velocity change is small
+            double peakAcceleration = Math.min(acceleration, Math.sqrt(velocityChange * jerk));
+            double jerkDistance = peakAcceleration / jerk;
+            double jerkGain = peakAcceleration * jerkDistance / 2;
+
+            add(jerkDistance, initialVelocity, 0, sign * jerk / 2);
+            add(velocityChange / peakAcceleration - jerkDistance, initialVelocity + sign * jerkGain, sign * peakAcceleration, 0);
+            add(jerkDistance, finalVelocity - sign * jerkGain, sign * peakAcceleration, -sign * jerk / 2);
+        }
+
+        private double[][] toArrays(double endVelocity) {
+            if (mCount == 0) {
+                // A path with no length still needs one piece to give its velocity
+                return new double[][]{{mEnd, mEnd}, {endVelocity}, {0}, {0}};
+            }
+
+            fStarts[mCount] = mEnd;
+
+            return new double[][]{Arrays.copyOf(fStarts, mCount + 1), Arrays.copyOf(fConstants, mCount),
+                    Arrays.copyOf(fLinears, mCount), Arrays.copyOf(fQuadratics, mCount)};
+        }
+    }
+
+    /**
+     * @return a copy of the distance each piece starts at, with the end of the profile as the last value
+     */
+    public double[] getStarts() {
+        return fStarts.clone();
+    }
+
+    public double[] getConstants() {
+        return fConstants.clone();
+    }
+
+    public double[] getLinears() {
+        return fLinears.clone();
+    }
+
+    public double[] getQuadratics() {
+        return fQuadratics.clone();
+    }
+
+    /**
+     * Finds the velocity at the given distance along the path
+     *
+     * @param distance the distance along the path
+     * @return the velocity at that distance
+     */
+    public double getVelocity(double distance) {
+        if (!(distance > fStarts[0])) {
+            return fConstants[0];
+        }
+
+        int pieceCount = fConstants.length;
+
+        if (distance >= fStarts[pieceCount]) {
+            return fEndVelocity;
+        }
+
+        int bucket = Math.min((int) ((distance - fBucketStart) * fInverseBucketSize), fBucketPieces.length - 1);
+
+        // The distance is in the bucket's first piece, the next bucket's first piece or one of the pieces between them
+        int piece = fBucketPieces[bucket];
+        int lastPiece = bucket + 1 < fBucketPieces.length ? fBucketPieces[bucket + 1] : pieceCount - 1;
+
+        while (piece < lastPiece) {
+            int middle = (piece + lastPiece + 1) >>> 1;
+
+            if (fStarts[middle] <= distance) {
+                piece = middle;
+            } else {
+                lastPiece = middle - 1;
+            }
+        }
+
+        // Rounding can put a distance right at the end of a bucket into it
+        while (fStarts[piece + 1] <= distance) {
+            piece++;
+        }
+
+        return velocityInPiece(piece, distance);
+    }
+
+    private double velocityInPiece(int piece, double distance) {
+        double x = distance - fStarts[piece];
+        return fConstants[piece] + x * (fLinears[piece] + x * fQuadratics[piece]);
+    }
+}
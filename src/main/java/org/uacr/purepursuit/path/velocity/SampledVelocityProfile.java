@@ -0,0 +1,140 @@
+package org.uacr.purepursuit.path.velocity;
+
+import org.uacr.purepursuit.PathUtil;
+import org.uacr.purepursuit.path.PathConstrains;
+
+import java.util.Arrays;
+
+/**
+ * SampledVelocityProfile samples another profile once at a fixed resolution,
+ * and answers every lookup with an index calculation and a linear interpolation,
+ * so the cost of a lookup doesn't depend on how complicated the sampled profile is.
+ * The last sample is at the end of the path, so the last interval can be shorter than the resolution.
+ */
+
+public class SampledVelocityProfile implements VelocityProfile {
+
+    private final double[] fVelocities;
+    private final double fResolution;
+    private final double fInverseResolution;
+
+    /**
+     * The distance of the last sample
+     */
+    private final double fLength;
+
+    /**
+     * Creates a profile from samples that were already taken, for example from a profile built offline
+     *
+     * @param velocities the velocity at every multiple of the resolution starting at zero, the last one at the length
+     * @param resolution the distance between samples
+     * @param length     the distance of the last sample, at most one resolution after the sample before it
+     */
+    public SampledVelocityProfile(double[] velocities, double resolution, double length) {
+        if (velocities.length < 1) {
+            throw new IllegalArgumentException("A sampled velocity profile needs at least one sample");
+        }
+        if (!(resolution > 0)) {
+            throw new IllegalArgumentException("Velocity profile resolution must be positive, was " + resolution);
+        }
+
+        int last = velocities.length - 1;
+        double tolerance = resolution * 1e-9;
+
+        if (!(length >= (last - 1) * resolution - tolerance && length <= last * resolution + tolerance)) {
+            throw new IllegalArgumentException("The last of " + velocities.length + " samples " + resolution +
+                    " apart can't be at " + length);
+        }
+
+        fVelocities = velocities.clone();
+        fResolution = resolution;
+        fInverseResolution = 1 / resolution;
+        fLength = PathUtil.limit(length, Math.max(last - 1, 0) * resolution, last * resolution);
+    }
+
+    /**
+     * Creates a profile from samples at every multiple of the resolution starting at zero
+     */
+    public SampledVelocityProfile(double[] velocities, double resolution) {
+        this(velocities, resolution, (velocities.length - 1) * resolution);
+    }
+
+    public SampledVelocityProfile(VelocityProfile profile, double length, double resolution) {
+        this(sample(profile, length, resolution), resolution, Math.max(length, 0));
+    }
+
+    public SampledVelocityProfile(VelocityProfile profile, double length, PathConstrains constrains) {
+        this(profile, length, constrains.velocityProfileResolution);
+    }
+
+    private static double[] sample(VelocityProfile profile, double length, double resolution) {
+        if (!(resolution > 0)) {
+            throw new IllegalArgumentException("Velocity profile resolution must be positive, was " + resolution);
+        }
+
+        double end = Math.max(length, 0);
+        int samples = (int) Math.ceil(end / resolution) + 1;
+
+        // Rounding in the division can leave the sample before the last one at the end
+        while (samples > 1 && (samples - 2) * resolution >= end) {
+            samples--;
+        }
+
+        double[] velocities = new double[samples];
+
+        for (int s = 0; s < samples - 1; s++) {
+            velocities[s] = profile.getVelocity(s * resolution);
+        }
+        velocities[samples - 1] = profile.getVelocity(end);
+
+        return velocities;
+    }
+
+    public double getResolution() {
+        return fResolution;
+    }
+
+    /**
+     * @return the distance of the last sample
+     */
+    public double getLength() {
+        return fLength;
+    }
+
+    /**
+     * @return a copy of the samples
+     */
+    public double[] getVelocities() {
+        return fVelocities.clone();
+    }
+
+    @Override
+    public double getVelocity(double distance) {
+        double position = distance * fInverseResolution;
+
+        if (!(position > 0)) {
+            return fVelocities[0];
+        }
+
+        int last = fVelocities.length - 1;
+        int index = (int) position;
+
+        if (distance >= fLength || index >= last) {
+            return fVelocities[last];
+        }
+
+        double fraction = position - index;
+
+        // The last interval ends at the length instead of a whole resolution on
+        if (index == last - 1) {
+            double start = index * fResolution;
+            fraction = (distance - start) / (fLength - start);
+        }
+
+        return fVelocities[index] + (fVelocities[index + 1] - fVelocities[index]) * fraction;
+    }
+
+    public String toString() {
+        return "Resolution: " + fResolution + " Length: " + fLength + " Velocities: " + Arrays.toString(fVelocities);
+    }
+}
@@ -0,0 +1,230 @@
+package org.uacr.purepursuit.path.velocity;
+
+import java.util.Arrays;
+
+/**
+ * TimedTrajectory turns a velocity profile, which gives velocity by distance along the path,
+ * into a table of distance, velocity and acceleration at every control period.
+ * The table is built once by integrating ds/dt = v(s) with fourth order Runge Kutta,
+ * after that the setpoint for any tick is an array lookup and the time the robot reaches any distance is a binary search.
+ */
+
+public class TimedTrajectory {
+
+    /**
+     * Stops a profile that barely moves from filling the memory
+     */
+    private static final int MAX_TICKS = 10_000_000;
+
+    private final double fPeriod;
+    private final double fLength;
+    private final double fDuration;
+
+    /**
+     * The fraction of a period the last tick before the end of the path takes to reach the end
+     */
+    private final double fLastTickFraction;
+
+    /**
+     * The distance, velocity and acceleration at the start of every tick, tick k starts at time k * period.
+     * The last tick is the first one at the end of the path.
+     */
+    private final double[] fDistances;
+    private final double[] fVelocities;
+    private final double[] fAccelerations;
+
+    /**
+     * @param profile the velocity profile, must have a positive velocity everywhere before the end of the path
+     * @param length  the length of the path
+     * @param period  the time between ticks, in the same time unit as the profile's velocities
+     */
+    public TimedTrajectory(VelocityProfile profile, double length, double period) {
+        if (!(period > 0)) {
+            throw new IllegalArgumentException("Trajectory period must be positive, was " + period);
+        }
+
+        fPeriod = period;
+        fLength = Math.max(length, 0);
+
+        double[] distances = new double[64];
+        double[] velocities = new double[64];
+        int ticks = 1;
+        double lastTickFraction = 1;
+
+        distances[0] = 0;
+        velocities[0] = profile.getVelocity(0);
+
+        while (distances[ticks - 1] < fLength) {
+            if (ticks == MAX_TICKS) {
+                throw new IllegalArgumentException("Velocity profile takes more than " + MAX_TICKS + " ticks to finish the path");
+            }
+
+            double distance = distances[ticks - 1];
+            double step = step(profile, distance, period);
+
+            if (!(step > 0)) {
+                throw new IllegalArgumentException("Velocity profile stops before the end of the path at " + distance);
+            }
+
+            double nextDistance = distance + step;
+
+            if (nextDistance >= fLength) {
+                lastTickFraction = (fLength - distance) / step;
+                nextDistance = fLength;
+            }
+
+            if (ticks == distances.length) {
+                distances = Arrays.copyOf(distances, ticks * 2);
+                velocities = Arrays.copyOf(velocities, ticks * 2);
+            }
+
+            distances[ticks] = nextDistance;
+            velocities[ticks] = profile.getVelocity(nextDistance);
+            ticks++;
+        }
+
+        fDistances = Arrays.copyOf(distances, ticks);
+        fVelocities = Arrays.copyOf(velocities, ticks);
+        fAccelerations = new double[ticks];
+
+        for (int t = 0; t < ticks - 1; t++) {
+            fAccelerations[t] = (fVelocities[t + 1] - fVelocities[t]) / (t == ticks - 2 ? lastTickFraction * period : period);
+        }
+
+        fLastTickFraction = lastTickFraction;
+        fDuration = ticks > 1 ? (ticks - 2 + lastTickFraction) * period : 0;
+    }
+
+    /**
+     * @return the distance travelled in one period starting at the given distance
+     */
+    private static double step(VelocityProfile profile, double distance, double period) {
+        double k1 = profile.getVelocity(distance);
+        double k2 = profile.getVelocity(distance + k1 * period / 2);
+        double k3 = profile.getVelocity(distance + k2 * period / 2);
+        double k4 = profile.getVelocity(distance + k3 * period);
+
+        return (k1 + 2 * k2 + 2 * k3 + k4) * period / 6;
+    }
+
+    public double getPeriod() {
+        return fPeriod;
+    }
+
+    public double getLength() {
+        return fLength;
+    }
+
+    /**
+     * @return the time it takes to reach the end of the path
+     */
+    public double getDuration() {
+        return fDuration;
+    }
+
+    /**
+     * @return the number of ticks in the table, the last one being at the end of the path,
+     * the tick before it can take less than a full period to get there
+     */
+    public int getTicks() {
+        return fDistances.length;
+    }
+
+    /**
+     * @param tick the number of periods since the start of the path, ticks after the end give the end of the path
+     * @return the distance along the path the robot should be at
+     */
+    public double getDistance(int tick) {
+        return fDistances[clampTick(tick)];
+    }
+
+    public double getVelocity(int tick) {
+        return fVelocities[clampTick(tick)];
+    }
+
+    public double getAcceleration(int tick) {
+        return fAccelerations[clampTick(tick)];
+    }
+
+    private int clampTick(int tick) {
+        return Math.max(0, Math.min(tick, fDistances.length - 1));
+    }
+
+    /**
+     * @param time the time since the start of the path
+     * @return the distance along the path the robot should be at, interpolated between ticks
+     */
+    public double getDistanceAtTime(double time) {
+        return interpolate(fDistances, time);
+    }
+
+    public double getVelocityAtTime(double time) {
+        return interpolate(fVelocities, time);
+    }
+
+    private double interpolate(double[] values, double time) {
+        double ticks = time / fPeriod;
+
+        if (!(ticks > 0) || values.length == 1) {
+            return values[0];
+        }
+
+        int tick = Math.min((int) ticks, values.length - 2);
+        double fraction = (ticks - tick) / (tick == values.length - 2 ? fLastTickFraction : 1);
+
+        if (fraction >= 1) {
+            return values[values.length - 1];
+        }
+
+        return values[tick] + fraction * (values[tick + 1] - values[tick]);
+    }
+
+    /**
+     * Finds the time the robot reaches a distance along the path
+     *
+     * @param distance the distance along the path
+     * @return the time since the start of the path, interpolated between ticks
+     */
+    public double getTimeAtDistance(double distance) {
+        int lastTick = fDistances.length - 1;
+
+        if (lastTick == 0 || distance <= fDistances[0]) {
+            return 0;
+        }
+        if (distance >= fDistances[lastTick]) {
+            return fDuration;
+        }
+
+        int low = 0;
+        int high = lastTick - 1;
+
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+
+            if (fDistances[middle] <= distance) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return getTime(low, distance);
+    }
+
+    /**
+     * @return the time remaining until the robot reaches the end of the path from the given distance
+     */
+    public double getTimeRemaining(double distance) {
+        return fDuration - getTimeAtDistance(distance);
+    }
+
+    /**
+     * @return the time the robot reaches a distance within the given tick
+     */
+    private double getTime(int tick, double distance) {
+        double tickDistance = fDistances[tick + 1] - fDistances[tick];
+        double tickFraction = tick == fDistances.length - 2 ? fLastTickFraction : 1;
+
+        return (tick + (distance - fDistances[tick]) / tickDistance * tickFraction) * fPeriod;
+    }
+}
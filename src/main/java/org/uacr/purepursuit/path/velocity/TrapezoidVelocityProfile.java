@@ -3,76 +3,264 @@ package org.uacr.purepursuit.path.velocity;
 import org.uacr.purepursuit.PathUtil;
 import org.uacr.purepursuit.math.Line;
 import org.uacr.purepursuit.math.Point;
-import org.uacr.purepursuit.math.Vector;
 import org.uacr.purepursuit.path.PathConstrains;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 public class TrapezoidVelocityProfile implements VelocityProfile {
 
     public final List<Line> fVelocityProfile;
 
+    /**
+     * The corners of the profile sorted by distance, line l goes from corner l to corner l + 1
+     */
+    private final double[] fDistances;
+    private final double[] fVelocities;
+    private final double[] fSlopes;
+
+    /**
+     * The index of the line the last lookup landed on, distance almost always increases between lookups
+     * so the next lookup usually lands on the same or the next line.
+     * It is only a hint that is checked before it is used, so a stale value from another thread is harmless.
+     */
+    private int mLastLineIndex;
+
+    /**
+     * Builds the profile in linear time after sorting the speed reductions.
+     * The start and end of the path and every speed reduction are the stops of the profile,
+     * a forward pass limits each stop to what the robot can accelerate to from the stops before it
+     * and a backward pass limits each stop to what the robot can decelerate from to the stops after it.
+     * Between two stops the robot accelerates, holds the max velocity if it gets there and then decelerates.
+     *
+     * @param constrains      the velocity and acceleration constraints
+     * @param length          the length of the path
+     * @param speedReductions a map with the keys being distances of the speed reductions and values being the speed reductions
+     */
     public TrapezoidVelocityProfile(PathConstrains constrains, double length, Map<Double, Double> speedReductions) {
-        fVelocityProfile = new ArrayList<>();
+        this(buildCorners(constrains, length, speedReductions));
+    }
+
+    /**
+     * Creates a profile from corners that were already built, for example by a profile loaded from a file
+     *
+     * @param distances  the distance of each corner, sorted
+     * @param velocities the velocity at each corner
+     * @param slopes     the slope of the line from each corner to the next, one less than the number of corners
+     */
+    public TrapezoidVelocityProfile(double[] distances, double[] velocities, double[] slopes) {
+        this(copyCorners(distances, velocities, slopes));
+    }
 
-        Line minVelocityLine = new Line(new Point(0, constrains.minVelocity), new Vector(length, 0));
-        Line maxVelocityLine = new Line(new Point(0, constrains.maxVelocity), new Vector(length, 0));
+    private TrapezoidVelocityProfile(double[][] corners) {
+        fDistances = corners[0];
+        fVelocities = corners[1];
+        fSlopes = corners[2];
 
-        fVelocityProfile.add(new Line(minVelocityLine.initial(), new Line(minVelocityLine.initial(), minVelocityLine.initial().add(new Point(1, constrains.maxAcceleration))).intersection(maxVelocityLine)));
+        List<Line> velocityProfile = new ArrayList<>();
+        for (int l = 0; l < fSlopes.length; l++) {
+            velocityProfile.add(new Line(new Point(fDistances[l], fVelocities[l]), new Point(fDistances[l + 1], fVelocities[l + 1])));
+        }
+        fVelocityProfile = Collections.unmodifiableList(velocityProfile);
 
-        for(double reductionDistance : speedReductions.keySet().stream().sorted().collect(Collectors.toList())) {
-            Point speedReductionPoint = new Point(reductionDistance, PathUtil.interpolate(speedReductions.get(reductionDistance), 0, 1, constrains.maxVelocity, constrains.minVelocity));
+        mLastLineIndex = 0;
+    }
 
-            fVelocityProfile.add(new Line(new Line(speedReductionPoint, speedReductionPoint.add(new Point(-1, constrains.maxDeceleration))).intersection(maxVelocityLine), speedReductionPoint));
-            fVelocityProfile.add(new Line(speedReductionPoint, new Line(speedReductionPoint, speedReductionPoint.add(new Point(1, constrains.maxAcceleration))).intersection(maxVelocityLine)));
+    private static double[][] copyCorners(double[] distances, double[] velocities, double[] slopes) {
+        if (distances.length < 1 || velocities.length != distances.length || slopes.length != distances.length - 1) {
+            throw new IllegalArgumentException("A velocity profile needs at least one corner and one slope less than it has corners");
         }
 
-        fVelocityProfile.add(new Line(new Line(minVelocityLine.terminal(), minVelocityLine.terminal().add(new Point(-1, constrains.maxDeceleration))).intersection(maxVelocityLine), minVelocityLine.terminal()));
+        return new double[][]{distances.clone(), velocities.clone(), slopes.clone()};
+    }
 
-        for(int l = 0; l < fVelocityProfile.size() - 1; l++) {
-            if(PathUtil.toleranceEquals(Math.abs(fVelocityProfile.get(l).slope()), 0, 0.00001)) {
-                continue;
-            }
+    /**
+     * @return the distance, velocity and slope arrays of the profile's corners
+     */
+    private static double[][] buildCorners(PathConstrains constrains, double length, Map<Double, Double> speedReductions) {
+        double acceleration = constrains.maxAcceleration;
+        double deceleration = constrains.maxDeceleration;
+        double maxVelocity = constrains.maxVelocity;
+
+        double[] reductionDistances = new double[speedReductions.size()];
+        int reductions = 0;
+        for (double reductionDistance : speedReductions.keySet()) {
+            reductionDistances[reductions++] = reductionDistance;
+        }
+        Arrays.sort(reductionDistances);
+
+        // The stops are the start of the path, every speed reduction and the end of the path,
+        // stops at the same distance are combined keeping the lowest velocity
+        double[] stopDistances = new double[reductions + 2];
+        double[] stopVelocities = new double[reductions + 2];
+        int stops = 0;
+
+        stopDistances[stops] = 0;
+        stopVelocities[stops++] = constrains.minVelocity;
+
+        for (int r = 0; r < reductions; r++) {
+            double velocity = PathUtil.interpolate(speedReductions.get(reductionDistances[r]), 0, 1, maxVelocity, constrains.minVelocity);
+            stops = addStop(stopDistances, stopVelocities, stops, reductionDistances[r], velocity);
+        }
 
-            while (true) {
-                Point nextLineIntersection = fVelocityProfile.get(l).intersection(fVelocityProfile.get(l + 1));
-
-                if (nextLineIntersection.getY() > constrains.maxVelocity + 0.0001) {
-                    fVelocityProfile.add(l + 1, new Line(fVelocityProfile.get(l).intersection(maxVelocityLine),
-                            fVelocityProfile.get(l + 1).intersection(maxVelocityLine)));
-                    break;
-                } else if (fVelocityProfile.get(l).slope() > 0.0) {
-                    if (fVelocityProfile.get(l + 1).isInSegment(nextLineIntersection)) {
-                        fVelocityProfile.set(l, new Line(fVelocityProfile.get(l).initial(), nextLineIntersection));
-                        fVelocityProfile.set(l + 1, new Line(nextLineIntersection, fVelocityProfile.get(l + 1).terminal()));
-                        break;
-                    }
-                    fVelocityProfile.remove(l + 1);
-                    fVelocityProfile.remove(l + 1);
-                } else {
-                    break;
-                }
+        stops = addStop(stopDistances, stopVelocities, stops, length, constrains.minVelocity);
+
+        for (int s = 1; s < stops; s++) {
+            stopVelocities[s] = Math.min(stopVelocities[s], stopVelocities[s - 1] + acceleration * (stopDistances[s] - stopDistances[s - 1]));
+        }
+
+        for (int s = stops - 2; s >= 0; s--) {
+            stopVelocities[s] = Math.min(stopVelocities[s], stopVelocities[s + 1] + deceleration * (stopDistances[s + 1] - stopDistances[s]));
+        }
+
+        // Each gap between stops adds at most an acceleration, a max velocity and a deceleration line
+        double[] distances = new double[3 * stops + 1];
+        double[] velocities = new double[3 * stops + 1];
+        double[] slopes = new double[3 * stops];
+        int corners = 1;
+
+        distances[0] = stopDistances[0];
+        velocities[0] = stopVelocities[0];
+
+        for (int s = 0; s < stops - 1; s++) {
+            double initialDistance = stopDistances[s];
+            double initialVelocity = stopVelocities[s];
+            double finalDistance = stopDistances[s + 1];
+            double finalVelocity = stopVelocities[s + 1];
+
+            double accelerationEnd = acceleration > 0 ? initialDistance + (maxVelocity - initialVelocity) / acceleration : Double.POSITIVE_INFINITY;
+            double decelerationStart = deceleration > 0 ? finalDistance - (maxVelocity - finalVelocity) / deceleration : Double.NEGATIVE_INFINITY;
+
+            if (accelerationEnd <= decelerationStart) {
+                corners = addLine(distances, velocities, slopes, corners, accelerationEnd, maxVelocity, acceleration);
+                corners = addLine(distances, velocities, slopes, corners, decelerationStart, maxVelocity, 0);
+            } else {
+                // The robot starts decelerating before it gets to the max velocity
+                double peakDistance = acceleration + deceleration > 0 ?
+                        (finalVelocity - initialVelocity + deceleration * finalDistance + acceleration * initialDistance) / (acceleration + deceleration) : finalDistance;
+                peakDistance = PathUtil.limit(peakDistance, initialDistance, finalDistance);
+
+                corners = addLine(distances, velocities, slopes, corners, peakDistance, initialVelocity + acceleration * (peakDistance - initialDistance), acceleration);
             }
+
+            corners = addLine(distances, velocities, slopes, corners, finalDistance, finalVelocity, -deceleration);
         }
+
+        return new double[][]{Arrays.copyOf(distances, corners), Arrays.copyOf(velocities, corners), Arrays.copyOf(slopes, Math.max(corners - 1, 0))};
     }
 
+    private static int addStop(double[] distances, double[] velocities, int stops, double distance, double velocity) {
+        if (distance <= distances[stops - 1]) {
+            velocities[stops - 1] = Math.min(velocities[stops - 1], velocity);
+            return stops;
+        }
 
+        distances[stops] = distance;
+        velocities[stops] = velocity;
+        return stops + 1;
+    }
+
+    /**
+     * Adds a line from the last corner to the given corner,
+     * lines with no length are skipped and lines with the same slope as the line before them are joined into it
+     *
+     * @return the new number of corners
+     */
+    private static int addLine(double[] distances, double[] velocities, double[] slopes, int corners, double distance, double velocity, double slope) {
+        if (!(distance > distances[corners - 1])) {
+            return corners;
+        }
+
+        if (corners > 1 && slopes[corners - 2] == slope) {
+            distances[corners - 1] = distance;
+            velocities[corners - 1] = velocity;
+            return corners;
+        }
+
+        slopes[corners - 1] = slope;
+        distances[corners] = distance;
+        velocities[corners] = velocity;
+        return corners + 1;
+    }
+
+    /**
+     * @return a copy of the distance of each corner
+     */
+    public double[] getDistances() {
+        return fDistances.clone();
+    }
+
+    /**
+     * @return a copy of the velocity at each corner
+     */
+    public double[] getVelocities() {
+        return fVelocities.clone();
+    }
+
+    /**
+     * @return a copy of the slope of the line from each corner to the next
+     */
+    public double[] getSlopes() {
+        return fSlopes.clone();
+    }
+
+    /**
+     * Finds the velocity at the given distance along the path.
+     * Runs in constant time when the distance moves forward from the last lookup
+     * and falls back to a binary search otherwise.
+     *
+     * @param distance the distance along the path
+     * @return the velocity at that distance
+     */
     public double getVelocity(double distance) {
-        for(Line line : fVelocityProfile) {
-            if(line.isInDomain(distance)) {
-                return line.evaluateX(distance).getY();
-            }
+        int lines = fSlopes.length;
+
+        if (lines == 0 || distance <= fDistances[0]) {
+            return fVelocities[0];
         }
-        if(distance < fVelocityProfile.get(0).initial().getX()) {
-            return fVelocityProfile.get(0).initial().getY();
+        if (fDistances[lines] <= distance) {
+            return fVelocities[lines];
         }
-        if(fVelocityProfile.get(fVelocityProfile.size() - 1).terminal().getX() < distance) {
-            return fVelocityProfile.get(fVelocityProfile.size() - 1).terminal().getY();
+
+        int index = mLastLineIndex;
+
+        if (!isInLine(index, distance)) {
+            if (index + 1 < lines && isInLine(index + 1, distance)) {
+                index++;
+            } else {
+                index = findLine(distance);
+            }
+
+            mLastLineIndex = index;
+        }
+
+        return fVelocities[index] + (distance - fDistances[index]) * fSlopes[index];
+    }
+
+    private boolean isInLine(int index, double distance) {
+        return fDistances[index] <= distance && distance <= fDistances[index + 1];
+    }
+
+    /**
+     * @return the index of the first line containing the distance, the distance must be within the profile
+     */
+    private int findLine(double distance) {
+        int low = 0;
+        int high = fSlopes.length - 1;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (fDistances[middle + 1] < distance) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
         }
 
-        return -1;
+        return low;
     }
 }
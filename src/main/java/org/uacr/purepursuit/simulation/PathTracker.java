@@ -0,0 +1,137 @@
+package org.uacr.purepursuit.simulation;
+
+import org.uacr.purepursuit.math.Point;
+import org.uacr.purepursuit.math.VectorMath;
+import org.uacr.purepursuit.path.Path;
+import org.uacr.purepursuit.path.segment.LineSegment;
+import org.uacr.purepursuit.path.segment.PointSegment;
+import org.uacr.purepursuit.path.segment.Segment;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures how far the simulated robot is from a path by flattening the path into one polyline.
+ * The closest line is searched for in a window ahead of the last closest line, since the robot only moves a little each tick.
+ */
+
+class PathTracker {
+
+    private static final int SEARCH_WINDOW = 32;
+
+    private final double[] fXs;
+    private final double[] fYs;
+
+    private int mClosestIndex;
+
+    PathTracker(Path path) {
+        double[] xs = new double[16];
+        double[] ys = new double[16];
+        int points = 0;
+
+        for (Segment segment : path.getSegments()) {
+            double[] segmentXs;
+            double[] segmentYs;
+
+            if (segment instanceof LineSegment) {
+                List<Point> linePoints = ((LineSegment) segment).getPoints();
+                segmentXs = new double[linePoints.size()];
+                segmentYs = new double[linePoints.size()];
+
+                for (int p = 0; p < linePoints.size(); p++) {
+                    segmentXs[p] = linePoints.get(p).getX();
+                    segmentYs[p] = linePoints.get(p).getY();
+                }
+            } else if (segment instanceof PointSegment) {
+                segmentXs = ((PointSegment) segment).getXs();
+                segmentYs = ((PointSegment) segment).getYs();
+            } else {
+                throw new IllegalArgumentException("Can't track segments of type " + segment.getClass().getName());
+            }
+
+            if (points + segmentXs.length > xs.length) {
+                xs = Arrays.copyOf(xs, Math.max(xs.length * 2, points + segmentXs.length));
+                ys = Arrays.copyOf(ys, xs.length);
+            }
+
+            for (int p = 0; p < segmentXs.length; p++) {
+                // Segments start where the one before them ends, so the shared point is only added once
+                if (points > 0 && xs[points - 1] == segmentXs[p] && ys[points - 1] == segmentYs[p]) {
+                    continue;
+                }
+
+                xs[points] = segmentXs[p];
+                ys[points++] = segmentYs[p];
+            }
+        }
+
+        if (points == 0) {
+            throw new IllegalArgumentException("Can't track a path with no points");
+        }
+
+        fXs = Arrays.copyOf(xs, points);
+        fYs = Arrays.copyOf(ys, points);
+
+        mClosestIndex = 0;
+    }
+
+    double getInitialX() {
+        return fXs[0];
+    }
+
+    double getInitialY() {
+        return fYs[0];
+    }
+
+    /**
+     * @return whether the closest line to the point is the last line of the path and the point is within the tolerance of the end
+     */
+    boolean isAtEnd(double x, double y, double tolerance) {
+        return mClosestIndex >= fXs.length - 2 && VectorMath.distance(x, y, fXs[fXs.length - 1], fYs[fYs.length - 1]) <= tolerance;
+    }
+
+    /**
+     * @return the distance from the point to the closest point on the path
+     */
+    double getCrossTrackError(double x, double y) {
+        if (fXs.length == 1) {
+            return VectorMath.distance(x, y, fXs[0], fYs[0]);
+        }
+
+        int lastLine = Math.min(mClosestIndex + SEARCH_WINDOW, fXs.length - 2);
+
+        double closestDistance = Double.POSITIVE_INFINITY;
+        int closestIndex = mClosestIndex;
+
+        for (int l = mClosestIndex; l <= lastLine; l++) {
+            double distance = distanceToLine(l, x, y);
+
+            if (distance < closestDistance) {
+                closestDistance = distance;
+                closestIndex = l;
+            }
+        }
+
+        mClosestIndex = closestIndex;
+
+        return closestDistance;
+    }
+
+    private double distanceToLine(int line, double x, double y) {
+        double ix = fXs[line];
+        double iy = fYs[line];
+        double tx = fXs[line + 1];
+        double ty = fYs[line + 1];
+
+        double t = VectorMath.projectionParameter(x, y, ix, iy, tx - ix, ty - iy);
+
+        if (Double.isNaN(t) || t <= 0) {
+            return VectorMath.distance(x, y, ix, iy);
+        }
+        if (t >= 1) {
+            return VectorMath.distance(x, y, tx, ty);
+        }
+
+        return VectorMath.distance(x, y, ix + t * (tx - ix), iy + t * (ty - iy));
+    }
+}
@@ -0,0 +1,113 @@
+package org.uacr.purepursuit.simulation;
+
+import org.uacr.purepursuit.PathUtil;
+import org.uacr.purepursuit.controller.WestCoastPurePursuitController;
+import org.uacr.purepursuit.math.Pose2d;
+
+/**
+ * A west coast controller driving a perfect kinematic differential drive robot instead of real hardware.
+ * The drive velocities set by the controller are integrated exactly along an arc every time the robot is stepped,
+ * so the same inputs always give the same result.
+ */
+
+public class SimulatedWestCoastController extends WestCoastPurePursuitController {
+
+    private double mX;
+    private double mY;
+    private double mHeading;
+    private double mLeftVelocity;
+    private double mRightVelocity;
+
+    /**
+     * The simulated time, advanced by every step
+     */
+    private double mTime;
+
+    public SimulatedWestCoastController(double trackWidth, Pose2d initialPose) {
+        super(trackWidth);
+
+        setPose(initialPose);
+        mTime = 0;
+    }
+
+    public SimulatedWestCoastController(double trackWidth) {
+        this(trackWidth, new Pose2d());
+    }
+
+    public void setPose(Pose2d pose) {
+        mX = pose.getX();
+        mY = pose.getY();
+        mHeading = pose.getHeading();
+        mLeftVelocity = 0;
+        mRightVelocity = 0;
+    }
+
+    @Override
+    public void setDriveVelocities(double leftVelocity, double rightVelocity) {
+        mLeftVelocity = leftVelocity;
+        mRightVelocity = rightVelocity;
+    }
+
+    @Override
+    public Pose2d getCurrentPose() {
+        return new Pose2d(mX, mY, mHeading);
+    }
+
+    public double getX() {
+        return mX;
+    }
+
+    public double getY() {
+        return mY;
+    }
+
+    public double getHeading() {
+        return mHeading;
+    }
+
+    public double getLeftVelocity() {
+        return mLeftVelocity;
+    }
+
+    public double getRightVelocity() {
+        return mRightVelocity;
+    }
+
+    public double getTime() {
+        return mTime;
+    }
+
+    /**
+     * Poses are timestamped with the simulated time instead of the wall clock, counting one time unit as a second
+     */
+    @Override
+    protected long getTimeNanos() {
+        return Math.round(mTime * 1e9);
+    }
+
+    /**
+     * Moves the robot along the arc given by the current drive velocities
+     *
+     * @param timeStep the time to move for
+     */
+    public void step(double timeStep) {
+        double velocity = (mLeftVelocity + mRightVelocity) / 2;
+        double angularVelocity = (mRightVelocity - mLeftVelocity) / getTrackWidth();
+
+        double heading = Math.toRadians(mHeading);
+        double deltaHeading = angularVelocity * timeStep;
+
+        if (Math.abs(deltaHeading) < 1e-9) {
+            mX += velocity * Math.cos(heading) * timeStep;
+            mY += velocity * Math.sin(heading) * timeStep;
+        } else {
+            double radius = velocity / angularVelocity;
+
+            mX += radius * (Math.sin(heading + deltaHeading) - Math.sin(heading));
+            mY -= radius * (Math.cos(heading + deltaHeading) - Math.cos(heading));
+        }
+
+        mHeading = PathUtil.angleWrap(mHeading + Math.toDegrees(deltaHeading));
+        mTime += timeStep;
+    }
+}
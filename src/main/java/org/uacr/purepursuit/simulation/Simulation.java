@@ -0,0 +1,179 @@
+package org.uacr.purepursuit.simulation;
+
+import org.uacr.purepursuit.controller.FollowerProbe;
+import org.uacr.purepursuit.controller.WestCoastPurePursuitController;
+import org.uacr.purepursuit.math.Pose2d;
+import org.uacr.purepursuit.path.Path;
+
+import javax.annotation.Nullable;
+
+/**
+ * Simulation follows one path with a {@link SimulatedWestCoastController}, stepping the robot at a fixed time step
+ * until the path is finished or the max time runs out. Nothing depends on the wall clock,
+ * so running the same simulation twice always gives the same result.
+ *
+ * Following a path doesn't change it, every run's controller follows it with its own cursor,
+ * so one path can be shared by any number of simulations running at once.
+ */
+
+public class Simulation {
+
+    private final Path fPath;
+    private final double fTrackWidth;
+
+    @Nullable
+    private Pose2d mInitialPose;
+    private WestCoastPurePursuitController.FollowDirection mFollowDirection;
+    private double mTimeStep;
+    private double mMaxTime;
+    private double mCompletionTolerance;
+    @Nullable
+    private FollowerProbe mProbe;
+
+    /**
+     * @param path       the path to follow
+     * @param trackWidth the distance between the left and right wheels of the simulated robot
+     */
+    public Simulation(Path path, double trackWidth) {
+        fPath = path;
+        fTrackWidth = trackWidth;
+
+        mInitialPose = null;
+        mFollowDirection = WestCoastPurePursuitController.FollowDirection.FORWARD;
+        mTimeStep = 0.02;
+        mMaxTime = 30;
+        mCompletionTolerance = 1;
+        mProbe = null;
+    }
+
+    public Path getPath() {
+        return fPath;
+    }
+
+    public double getTrackWidth() {
+        return fTrackWidth;
+    }
+
+    /**
+     * @return the pose the robot starts at, null if it starts at the start of the path facing along it
+     */
+    @Nullable
+    public Pose2d getInitialPose() {
+        return mInitialPose;
+    }
+
+    public Simulation setInitialPose(@Nullable Pose2d initialPose) {
+        mInitialPose = initialPose;
+        return this;
+    }
+
+    public WestCoastPurePursuitController.FollowDirection getFollowDirection() {
+        return mFollowDirection;
+    }
+
+    public Simulation setFollowDirection(WestCoastPurePursuitController.FollowDirection followDirection) {
+        mFollowDirection = followDirection;
+        return this;
+    }
+
+    public double getTimeStep() {
+        return mTimeStep;
+    }
+
+    /**
+     * @param timeStep the time between controller updates, in the same time unit as the path's velocities
+     */
+    public Simulation setTimeStep(double timeStep) {
+        if (!(timeStep > 0)) {
+            throw new IllegalArgumentException("Time step must be positive");
+        }
+
+        mTimeStep = timeStep;
+        return this;
+    }
+
+    public double getMaxTime() {
+        return mMaxTime;
+    }
+
+    /**
+     * @param maxTime the simulated time after which the path counts as not completed
+     */
+    public Simulation setMaxTime(double maxTime) {
+        mMaxTime = maxTime;
+        return this;
+    }
+
+    public double getCompletionTolerance() {
+        return mCompletionTolerance;
+    }
+
+    /**
+     * @param completionTolerance how close the robot has to get to the end of the path to complete it,
+     *                            the path also completes when the controller finishes following it
+     */
+    public Simulation setCompletionTolerance(double completionTolerance) {
+        mCompletionTolerance = completionTolerance;
+        return this;
+    }
+
+    @Nullable
+    public FollowerProbe getProbe() {
+        return mProbe;
+    }
+
+    /**
+     * @param probe the probe given to the controller, for measuring what each update costs
+     */
+    public Simulation setProbe(@Nullable FollowerProbe probe) {
+        mProbe = probe;
+        return this;
+    }
+
+    public SimulationResult run() {
+        long startTime = System.nanoTime();
+
+        PathTracker tracker = new PathTracker(fPath);
+
+        Pose2d initialPose = mInitialPose;
+        if (initialPose == null) {
+            double heading = fPath.getSegments().get(0).getInitialAngle();
+
+            if (mFollowDirection == WestCoastPurePursuitController.FollowDirection.REVERSE) {
+                heading += 180;
+            }
+
+            initialPose = new Pose2d(tracker.getInitialX(), tracker.getInitialY(), heading);
+        }
+
+        SimulatedWestCoastController controller = new SimulatedWestCoastController(fTrackWidth);
+        controller.setFollowDirection(mFollowDirection);
+        controller.setProbe(mProbe);
+        controller.followPath(fPath);
+        controller.setPose(initialPose);
+
+        int maxTicks = (int) Math.ceil(mMaxTime / mTimeStep);
+        int ticks = 0;
+        double totalCrossTrackError = 0;
+        double maxCrossTrackError = 0;
+        boolean isCompleted = false;
+
+        while (ticks < maxTicks) {
+            controller.updateFollower();
+            controller.step(mTimeStep);
+            ticks++;
+
+            double crossTrackError = tracker.getCrossTrackError(controller.getX(), controller.getY());
+            totalCrossTrackError += crossTrackError;
+            maxCrossTrackError = Math.max(maxCrossTrackError, crossTrackError);
+
+            if (controller.isPathFinished() || tracker.isAtEnd(controller.getX(), controller.getY(), mCompletionTolerance)) {
+                isCompleted = true;
+                break;
+            }
+        }
+
+        return new SimulationResult(isCompleted, ticks * mTimeStep, ticks, ticks > 0 ? totalCrossTrackError / ticks : 0,
+                maxCrossTrackError, System.nanoTime() - startTime);
+    }
+}
@@ -0,0 +1,96 @@
+package org.uacr.purepursuit.simulation;
+
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SimulationEngine runs many independent simulations at once, one fork join task per simulation,
+ * for example to sweep path constraints offline and compare how well each set is followed.
+ *
+ * <pre>
+ * List&lt;Simulation&gt; simulations = new ArrayList&lt;&gt;();
+ * for (double lookahead = 5; lookahead &lt;= 30; lookahead += 0.5) {
+ *     simulations.add(new Simulation(PathBuilder.start(0, 0, constrains(lookahead)).lineTo(60, 0).build(), 24));
+ * }
+ * List&lt;SimulationResult&gt; results = new SimulationEngine().run(simulations);
+ * </pre>
+ */
+
+public class SimulationEngine {
+
+    private static final Logger sLogger = LogManager.getLogger(SimulationEngine.class);
+
+    private final ForkJoinPool fPool;
+
+    private volatile long mLastTicks;
+    private volatile long mLastWallTimeNanos;
+
+    public SimulationEngine(ForkJoinPool pool) {
+        fPool = pool;
+
+        mLastTicks = 0;
+        mLastWallTimeNanos = 0;
+    }
+
+    public SimulationEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs every simulation and waits for them all to finish
+     *
+     * @return the result of each simulation, in the same order as the simulations
+     * @throws java.util.concurrent.CompletionException if any simulation failed
+     */
+    public List<SimulationResult> run(List<Simulation> simulations) {
+        long startTime = System.nanoTime();
+
+        List<CompletableFuture<SimulationResult>> futures = new ArrayList<>(simulations.size());
+
+        for (Simulation simulation : simulations) {
+            futures.add(CompletableFuture.supplyAsync(simulation::run, fPool));
+        }
+
+        List<SimulationResult> results = new ArrayList<>(futures.size());
+        long ticks = 0;
+
+        for (CompletableFuture<SimulationResult> future : futures) {
+            SimulationResult result = future.join();
+
+            results.add(result);
+            ticks += result.getTicks();
+        }
+
+        mLastTicks = ticks;
+        mLastWallTimeNanos = System.nanoTime() - startTime;
+
+        sLogger.info("Ran {} simulations, {} ticks in {} ms", results.size(), ticks, TimeUnit.NANOSECONDS.toMillis(mLastWallTimeNanos));
+
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * @return the total ticks of the last run
+     */
+    public long getLastTicks() {
+        return mLastTicks;
+    }
+
+    public long getLastWallTimeNanos() {
+        return mLastWallTimeNanos;
+    }
+
+    /**
+     * @return the ticks simulated per second of real time across every thread in the last run
+     */
+    public double getLastTicksPerSecond() {
+        return mLastWallTimeNanos > 0 ? mLastTicks * 1e9 / mLastWallTimeNanos : 0;
+    }
+}
@@ -0,0 +1,73 @@
+package org.uacr.purepursuit.simulation;
+
+/**
+ * The outcome of one {@link Simulation} run
+ */
+
+public class SimulationResult {
+
+    private final boolean fIsCompleted;
+    private final double fCompletionTime;
+    private final int fTicks;
+    private final double fMeanCrossTrackError;
+    private final double fMaxCrossTrackError;
+    private final long fWallTimeNanos;
+
+    public SimulationResult(boolean isCompleted, double completionTime, int ticks, double meanCrossTrackError, double maxCrossTrackError, long wallTimeNanos) {
+        fIsCompleted = isCompleted;
+        fCompletionTime = completionTime;
+        fTicks = ticks;
+        fMeanCrossTrackError = meanCrossTrackError;
+        fMaxCrossTrackError = maxCrossTrackError;
+        fWallTimeNanos = wallTimeNanos;
+    }
+
+    /**
+     * @return whether the robot finished the path before the simulation timed out
+     */
+    public boolean isCompleted() {
+        return fIsCompleted;
+    }
+
+    /**
+     * @return the simulated time it took to finish the path, or the max time if it didn't finish
+     */
+    public double getCompletionTime() {
+        return fCompletionTime;
+    }
+
+    public int getTicks() {
+        return fTicks;
+    }
+
+    /**
+     * @return the average distance from the robot to the path over every tick
+     */
+    public double getMeanCrossTrackError() {
+        return fMeanCrossTrackError;
+    }
+
+    /**
+     * @return the furthest the robot got from the path
+     */
+    public double getMaxCrossTrackError() {
+        return fMaxCrossTrackError;
+    }
+
+    /**
+     * @return the real time the simulation took to run
+     */
+    public long getWallTimeNanos() {
+        return fWallTimeNanos;
+    }
+
+    public double getTicksPerSecond() {
+        return fWallTimeNanos > 0 ? fTicks * 1e9 / fWallTimeNanos : 0;
+    }
+
+    public String toString() {
+        return "Completed: " + fIsCompleted + " Time: " + fCompletionTime + " Ticks: " + fTicks +
+                " Mean Cross Track Error: " + fMeanCrossTrackError + " Max Cross Track Error: " + fMaxCrossTrackError +
+                " Ticks Per Second: " + getTicksPerSecond();
+    }
+}
@@ -0,0 +1,67 @@
+package org.uacr.purepursuit.telemetry;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Writes telemetry records to a compact binary file.
+ * The file starts with a header of the magic number, the format version, the number of fields and the field names,
+ * followed by every record as its timestamp in nanoseconds and its values as doubles, all big endian.
+ */
+
+public class BinaryFileTelemetrySink implements TelemetrySink {
+
+    public static final int MAGIC = 0x55544C4D;
+    public static final short VERSION = 1;
+
+    private final File fFile;
+
+    private DataOutputStream mOutput;
+
+    public BinaryFileTelemetrySink(File file) {
+        fFile = file;
+    }
+
+    public BinaryFileTelemetrySink(String fileName) {
+        this(new File(fileName));
+    }
+
+    public File getFile() {
+        return fFile;
+    }
+
+    @Override
+    public void open(String[] fieldNames) throws IOException {
+        mOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fFile), 1 << 16));
+
+        mOutput.writeInt(MAGIC);
+        mOutput.writeShort(VERSION);
+        mOutput.writeShort(fieldNames.length);
+        for (String fieldName : fieldNames) {
+            mOutput.writeUTF(fieldName);
+        }
+    }
+
+    @Override
+    public void write(long timestamp, double[] values, int offset, int length) throws IOException {
+        mOutput.writeLong(timestamp);
+        for (int v = offset; v < offset + length; v++) {
+            mOutput.writeDouble(values[v]);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        mOutput.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (mOutput != null) {
+            mOutput.close();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.uacr.purepursuit.telemetry;
+
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+
+/**
+ * Logs every telemetry record at info level, the formatting happens on the recorder's background thread
+ */
+
+public class LoggerTelemetrySink implements TelemetrySink {
+
+    private static final Logger sLogger = LogManager.getLogger(LoggerTelemetrySink.class);
+
+    private String mMessage = "";
+    private Object[] mArguments = new Object[0];
+
+    @Override
+    public void open(String[] fieldNames) {
+        StringBuilder message = new StringBuilder("Time: {}");
+        for (String fieldName : fieldNames) {
+            message.append(" - ").append(fieldName).append(": {}");
+        }
+
+        mMessage = message.toString();
+        mArguments = new Object[fieldNames.length + 1];
+    }
+
+    @Override
+    public void write(long timestamp, double[] values, int offset, int length) {
+        mArguments[0] = timestamp;
+        for (int v = 0; v < length; v++) {
+            mArguments[v + 1] = values[offset + v];
+        }
+
+        sLogger.info(mMessage, mArguments);
+    }
+
+    @Override
+    public void flush() {
+
+    }
+
+    @Override
+    public void close() {
+
+    }
+}
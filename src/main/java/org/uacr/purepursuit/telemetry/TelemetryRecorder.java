@@ -0,0 +1,271 @@
+package org.uacr.purepursuit.telemetry;
+
+import org.uacr.utilities.logging.LogManager;
+import org.uacr.utilities.logging.Logger;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * TelemetryRecorder lets a control thread record rows of primitive values without formatting strings or blocking on I/O.
+ * Records are copied into a preallocated ring buffer and a background thread drains them into a {@link TelemetrySink}.
+ * There must only be one thread recording, if the buffer is full the record is dropped and counted instead of waiting.
+ *
+ * Recording a row looks like:
+ * <pre>
+ * if (recorder.beginRecord(System.nanoTime())) {
+ *     recorder.set(0, x);
+ *     recorder.set(1, y);
+ *     recorder.commitRecord();
+ * }
+ * </pre>
+ */
+
+public class TelemetryRecorder implements AutoCloseable {
+
+    private static final Logger sLogger = LogManager.getLogger(TelemetryRecorder.class);
+
+    private final String[] fFieldNames;
+    private final int fFieldCount;
+    private final int fCapacity;
+    private final int fMask;
+    private final TelemetrySink fSink;
+
+    private final long[] fTimestamps;
+    private final double[] fValues;
+
+    /**
+     * Number of records committed, only written by the recording thread
+     */
+    private final AtomicLong fWriteSequence;
+
+    /**
+     * Number of records drained, only written by the background thread
+     */
+    private final AtomicLong fReadSequence;
+
+    private final AtomicLong fDroppedRecords;
+
+    private volatile int mSampleInterval;
+    private volatile long mDrainPeriodNanos;
+    private volatile boolean mIsRunning;
+
+    @Nullable
+    private Thread mDrainThread;
+
+    private long mSampleCount;
+    private int mRecordOffset;
+    private boolean mIsRecording;
+
+    /**
+     * @param fieldNames the names of the values in every record
+     * @param capacity   the number of records the buffer holds, rounded up to a power of two
+     * @param sink       where the records are drained to
+     */
+    public TelemetryRecorder(String[] fieldNames, int capacity, TelemetrySink sink) {
+        fFieldNames = fieldNames.clone();
+        fFieldCount = fFieldNames.length;
+        fCapacity = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        fMask = fCapacity - 1;
+        fSink = sink;
+
+        fTimestamps = new long[fCapacity];
+        fValues = new double[fCapacity * fFieldCount];
+
+        fWriteSequence = new AtomicLong();
+        fReadSequence = new AtomicLong();
+        fDroppedRecords = new AtomicLong();
+
+        mSampleInterval = 1;
+        mDrainPeriodNanos = TimeUnit.MILLISECONDS.toNanos(20);
+        mIsRunning = false;
+        mDrainThread = null;
+
+        mSampleCount = 0;
+        mRecordOffset = 0;
+        mIsRecording = false;
+    }
+
+    public String[] getFieldNames() {
+        return fFieldNames.clone();
+    }
+
+    public int getCapacity() {
+        return fCapacity;
+    }
+
+    public int getSampleInterval() {
+        return mSampleInterval;
+    }
+
+    /**
+     * @param sampleInterval only every sampleInterval-th record is kept
+     */
+    public void setSampleInterval(int sampleInterval) {
+        mSampleInterval = Math.max(sampleInterval, 1);
+    }
+
+    public long getDrainPeriodNanos() {
+        return mDrainPeriodNanos;
+    }
+
+    /**
+     * @param drainPeriodNanos how long the background thread waits when there is nothing to drain
+     */
+    public void setDrainPeriodNanos(long drainPeriodNanos) {
+        mDrainPeriodNanos = Math.max(drainPeriodNanos, 1);
+    }
+
+    /**
+     * @return the number of records dropped because the buffer was full or the sink failed to write them
+     */
+    public long getDroppedRecords() {
+        return fDroppedRecords.get();
+    }
+
+    /**
+     * @return the number of records waiting to be drained
+     */
+    public long getPendingRecords() {
+        return fWriteSequence.get() - fReadSequence.get();
+    }
+
+    /**
+     * Opens the sink and starts the background thread
+     */
+    public synchronized void start() throws IOException {
+        if (mIsRunning) {
+            return;
+        }
+
+        fSink.open(getFieldNames());
+
+        mIsRunning = true;
+        mDrainThread = new Thread(this::drainLoop, "telemetry-recorder");
+        mDrainThread.setDaemon(true);
+        mDrainThread.setPriority(Thread.MIN_PRIORITY);
+        mDrainThread.start();
+    }
+
+    /**
+     * Starts a record, called from the recording thread
+     *
+     * @param timestamp the time of the record in nanoseconds
+     * @return whether the record should be filled in and committed,
+     * false if it was skipped by sampling or the buffer is full
+     */
+    public boolean beginRecord(long timestamp) {
+        mIsRecording = false;
+
+        if (mSampleCount++ % mSampleInterval != 0) {
+            return false;
+        }
+
+        long sequence = fWriteSequence.get();
+
+        if (sequence - fReadSequence.get() >= fCapacity) {
+            fDroppedRecords.incrementAndGet();
+            return false;
+        }
+
+        int index = (int) (sequence & fMask);
+        fTimestamps[index] = timestamp;
+        mRecordOffset = index * fFieldCount;
+        mIsRecording = true;
+
+        return true;
+    }
+
+    /**
+     * Sets a value of the record started by {@link #beginRecord(long)}
+     *
+     * @param field the index of the field in the field names
+     * @param value the value
+     */
+    public void set(int field, double value) {
+        fValues[mRecordOffset + field] = value;
+    }
+
+    /**
+     * Publishes the record started by {@link #beginRecord(long)} to the background thread
+     */
+    public void commitRecord() {
+        if (!mIsRecording) {
+            return;
+        }
+
+        mIsRecording = false;
+        fWriteSequence.lazySet(fWriteSequence.get() + 1);
+    }
+
+    private void drainLoop() {
+        while (mIsRunning) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(this, mDrainPeriodNanos);
+            }
+        }
+
+        drain();
+    }
+
+    /**
+     * @return the number of records drained
+     */
+    private int drain() {
+        long readSequence = fReadSequence.get();
+        long writeSequence = fWriteSequence.get();
+
+        if (readSequence == writeSequence) {
+            return 0;
+        }
+
+        long sequence = readSequence;
+
+        try {
+            for (; sequence < writeSequence; sequence++) {
+                int index = (int) (sequence & fMask);
+                fSink.write(fTimestamps[index], fValues, index * fFieldCount, fFieldCount);
+            }
+            fSink.flush();
+        } catch (IOException e) {
+            // The rest of the batch is given up on so a failing sink can't hold up the buffer
+            fDroppedRecords.addAndGet(writeSequence - sequence);
+            sLogger.error("Failed to write telemetry: {}", e.getMessage());
+        }
+
+        fReadSequence.lazySet(writeSequence);
+
+        return (int) (writeSequence - readSequence);
+    }
+
+    /**
+     * Stops the background thread after it drains the remaining records, and closes the sink
+     */
+    @Override
+    public synchronized void close() {
+        if (!mIsRunning) {
+            return;
+        }
+
+        mIsRunning = false;
+
+        if (mDrainThread != null) {
+            LockSupport.unpark(mDrainThread);
+            try {
+                mDrainThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            mDrainThread = null;
+        }
+
+        try {
+            fSink.close();
+        } catch (IOException e) {
+            sLogger.error("Failed to close telemetry: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.uacr.purepursuit.telemetry;
+
+import java.io.IOException;
+
+/**
+ * Receives records drained from a {@link TelemetryRecorder}, always on the recorder's background thread
+ */
+
+public interface TelemetrySink {
+
+    /**
+     * Called once before any records are written
+     *
+     * @param fieldNames the names of the values in every record
+     */
+    void open(String[] fieldNames) throws IOException;
+
+    /**
+     * Writes one record, the values must be copied before returning since the array is reused
+     *
+     * @param timestamp the time the record was taken in nanoseconds
+     * @param values    the array holding the record's values
+     * @param offset    the index of the record's first value
+     * @param length    the number of values in the record
+     */
+    void write(long timestamp, double[] values, int offset, int length) throws IOException;
+
+    void flush() throws IOException;
+
+    void close() throws IOException;
+}
@@ -0,0 +1,85 @@
+package org.uacr.purepursuit.diagnostics;
+
+import org.junit.Test;
+import org.uacr.purepursuit.math.Point;
+import org.uacr.purepursuit.path.Path;
+import org.uacr.purepursuit.path.PathBuilder;
+import org.uacr.purepursuit.path.PathConstrains;
+import org.uacr.purepursuit.simulation.Simulation;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Follows paths with a simulated robot and checks that no update of the follower allocates more than a budget.
+ * The follower is warmed up first so the JIT has compiled it, since interpreted code allocates things compiled code doesn't.
+ *
+ * The warmup makes it slow and it needs a JVM that isn't busy with other tests, so it only runs when asked to:
+ * <pre>
+ * ./gradlew test -DallocationBudget=true -DallocationBudgetBytes=1024
+ * </pre>
+ */
+
+public class AllocationBudgetTest {
+
+    private static final double TRACK_WIDTH = 24;
+
+    /**
+     * The budget checked when none is given, what one update allocates today
+     * (the copy of the robot's pose and the lookahead point)
+     */
+    private static final long DEFAULT_BUDGET_BYTES = 128;
+
+    private static final int WARMUP_RUNS = 200;
+    private static final int MEASURED_RUNS = 5;
+
+    private static PathConstrains createConstraints() {
+        PathConstrains constrains = new PathConstrains();
+        constrains.lookaheadDistance = 15;
+        constrains.maxVelocity = 30;
+        constrains.minVelocity = 1;
+        constrains.maxAcceleration = 5;
+        constrains.maxDeceleration = 5;
+
+        return constrains;
+    }
+
+    /**
+     * Follows the path on this thread, measuring every tick after the warmup, and checks every tick was within the budget
+     */
+    private static void checkBudget(Path path) {
+        assumeTrue(Boolean.getBoolean("allocationBudget"));
+
+        AllocationProbe probe = new AllocationProbe(Long.getLong("allocationBudgetBytes", DEFAULT_BUDGET_BYTES));
+
+        // The warmup runs with the probe too, attaching it afterwards would send the compiled follower
+        // down branches it has never taken and back to the interpreter
+        Simulation simulation = new Simulation(path, TRACK_WIDTH).setProbe(probe);
+
+        for (int r = 0; r < WARMUP_RUNS; r++) {
+            simulation.run();
+        }
+
+        probe.reset();
+
+        for (int r = 0; r < MEASURED_RUNS; r++) {
+            simulation.run();
+        }
+
+        assertTrue(probe.toString(), probe.isWithinBudget());
+    }
+
+    @Test
+    public void lineSegmentPathWithinBudget() {
+        checkBudget(PathBuilder.start(0, 0, createConstraints())
+                .lineTo(60, 0).lineTo(60, 60).lineTo(120, 60).lineTo(120, 0)
+                .build());
+    }
+
+    @Test
+    public void pointSegmentPathWithinBudget() {
+        checkBudget(PathBuilder.start(0, 0, createConstraints())
+                .pointsTo(new Point(30, 10), new Point(60, 0), new Point(90, 10), new Point(120, 0))
+                .build());
+    }
+}
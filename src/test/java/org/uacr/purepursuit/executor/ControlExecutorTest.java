@@ -0,0 +1,130 @@
+package org.uacr.purepursuit.executor;
+
+import org.junit.Test;
+import org.uacr.purepursuit.controller.PurePursuitController;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ControlExecutorTest {
+
+    private static final long PERIOD_MILLIS = 25;
+    private static final int TICKS = 14;
+    private static final int BLOCKING_TICK = 3;
+
+    /**
+     * Blocks for a fixed time on one tick and records the executor's period at every tick
+     */
+    private static class BlockingController extends PurePursuitController {
+
+        private final ControlExecutor fExecutor;
+        private final long fBlockMillis;
+        private final long[] fPeriods;
+        private final CountDownLatch fDone;
+
+        private int mTick;
+
+        private BlockingController(ControlExecutor executor, long blockMillis) {
+            fExecutor = executor;
+            fBlockMillis = blockMillis;
+            fPeriods = new long[TICKS];
+            fDone = new CountDownLatch(TICKS);
+
+            mTick = 0;
+        }
+
+        @Override
+        public void resetFollower() {
+        }
+
+        @Override
+        public void updateFollower() {
+            if (mTick < TICKS) {
+                fPeriods[mTick] = fExecutor.getCurrentPeriodNanos();
+            }
+
+            if (mTick == BLOCKING_TICK) {
+                try {
+                    Thread.sleep(fBlockMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            mTick++;
+            fDone.countDown();
+        }
+    }
+
+    /**
+     * Runs the executor until the controller has been updated enough times, blocking the controller on one tick
+     */
+    private static BlockingController run(ControlExecutor executor, double blockPeriods) throws InterruptedException {
+        BlockingController controller = new BlockingController(executor, (long) (blockPeriods * PERIOD_MILLIS));
+        executor.addController(controller);
+
+        executor.start();
+        assertTrue(controller.fDone.await(5, TimeUnit.SECONDS));
+        executor.close();
+
+        return controller;
+    }
+
+    @Test
+    public void skipDropsMissedTicks() throws InterruptedException {
+        ControlExecutor executor = new ControlExecutor(PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        executor.setOverrunPolicy(OverrunPolicy.SKIP);
+
+        // Ends one and a half periods past the next deadline, so that tick and the one after are dropped
+        run(executor, 2.5);
+
+        assertEquals(1, executor.getOverruns());
+        assertEquals(2, executor.getSkippedTicks());
+        assertEquals(executor.getPeriodNanos(), executor.getCurrentPeriodNanos());
+    }
+
+    @Test
+    public void catchUpCountsOneOverrun() throws InterruptedException {
+        ControlExecutor executor = new ControlExecutor(PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        executor.setOverrunPolicy(OverrunPolicy.CATCH_UP);
+
+        // Four missed ticks run back to back, each ends past its deadline but only the slow tick is an overrun
+        run(executor, 4.5);
+
+        assertEquals(1, executor.getOverruns());
+        assertEquals(0, executor.getSkippedTicks());
+    }
+
+    @Test
+    public void catchUpSkipsPastLimit() throws InterruptedException {
+        ControlExecutor executor = new ControlExecutor(PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        executor.setOverrunPolicy(OverrunPolicy.CATCH_UP);
+        executor.setMaxCatchUpTicks(2);
+
+        run(executor, 4.5);
+
+        assertEquals(1, executor.getOverruns());
+        assertEquals(2, executor.getSkippedTicks());
+    }
+
+    @Test
+    public void degradeDoublesThenRecoversPeriod() throws InterruptedException {
+        ControlExecutor executor = new ControlExecutor(PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        executor.setOverrunPolicy(OverrunPolicy.DEGRADE);
+        executor.setRecoveryTicks(3);
+
+        long period = executor.getPeriodNanos();
+        BlockingController controller = run(executor, 2.5);
+
+        assertEquals(1, executor.getOverruns());
+        assertEquals(0, executor.getSkippedTicks());
+
+        for (int tick = 0; tick < TICKS; tick++) {
+            boolean isDegraded = tick > BLOCKING_TICK && tick <= BLOCKING_TICK + 3;
+            assertEquals("Tick " + tick, isDegraded ? 2 * period : period, controller.fPeriods[tick]);
+        }
+    }
+}
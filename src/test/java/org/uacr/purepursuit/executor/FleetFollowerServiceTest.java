@@ -0,0 +1,200 @@
+package org.uacr.purepursuit.executor;
+
+import org.junit.Test;
+import org.uacr.purepursuit.controller.PurePursuitController;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FleetFollowerServiceTest {
+
+    private static final long PERIOD_MILLIS = 5;
+
+    /**
+     * Counts its updates, sleeping and throwing on every update when asked to
+     */
+    private static class TestController extends PurePursuitController {
+
+        private final AtomicInteger fUpdates = new AtomicInteger();
+        private final long fSleepMillis;
+        private final boolean fIsThrowing;
+
+        private TestController(long sleepMillis, boolean isThrowing) {
+            fSleepMillis = sleepMillis;
+            fIsThrowing = isThrowing;
+        }
+
+        private TestController() {
+            this(0, false);
+        }
+
+        @Override
+        public void resetFollower() {
+        }
+
+        @Override
+        public void updateFollower() {
+            fUpdates.incrementAndGet();
+
+            if (fSleepMillis > 0) {
+                try {
+                    Thread.sleep(fSleepMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            if (fIsThrowing) {
+                throw new IllegalStateException("Test failure");
+            }
+        }
+    }
+
+    private static void waitForUpdates(TestController controller, int updates) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (controller.fUpdates.get() < updates) {
+            assertTrue("Timed out waiting for " + updates + " updates", System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void robotsAddedAndRemovedWhileRunning() throws InterruptedException {
+        try (FleetFollowerService service = new FleetFollowerService(PERIOD_MILLIS, TimeUnit.MILLISECONDS, 2, 2)) {
+            TestController first = new TestController();
+            FleetRobot firstRobot = service.addRobot("first", first);
+            service.start();
+
+            waitForUpdates(first, 5);
+
+            TestController second = new TestController();
+            TestController third = new TestController();
+            FleetRobot secondRobot = service.addRobot("second", second);
+            service.addRobot("third", third);
+            assertEquals(3, service.getRobotCount());
+
+            waitForUpdates(second, 5);
+            waitForUpdates(third, 5);
+
+            assertTrue(service.removeRobot(secondRobot));
+            assertFalse(service.removeRobot(secondRobot));
+            assertTrue(secondRobot.isRemoved());
+            assertEquals(2, service.getRobotCount());
+
+            int removedUpdates = second.fUpdates.get();
+            waitForUpdates(first, first.fUpdates.get() + 5);
+            waitForUpdates(third, third.fUpdates.get() + 5);
+
+            assertEquals(removedUpdates, second.fUpdates.get());
+            assertEquals(removedUpdates, secondRobot.getUpdates());
+            assertFalse(firstRobot.isRemoved());
+        }
+    }
+
+    @Test
+    public void throwingRobotIsStoppedAlone() throws InterruptedException {
+        try (FleetFollowerService service = new FleetFollowerService(PERIOD_MILLIS, TimeUnit.MILLISECONDS, 1, 4)) {
+            service.setMaxConsecutiveFailures(5);
+
+            TestController healthy = new TestController();
+            TestController throwing = new TestController(0, true);
+            FleetRobot healthyRobot = service.addRobot("healthy", healthy);
+            FleetRobot throwingRobot = service.addRobot("throwing", throwing);
+            service.start();
+
+            // The throwing robot is in the same batch, the healthy robot keeps being updated after it stops
+            waitForUpdates(healthy, 20);
+
+            assertTrue(throwingRobot.isStopped());
+            assertEquals(5, throwingRobot.getFailures());
+            assertEquals(5, throwing.fUpdates.get());
+
+            assertFalse(healthyRobot.isStopped());
+            assertEquals(0, healthyRobot.getFailures());
+        }
+    }
+
+    @Test
+    public void slowBatchIsSkipped() throws InterruptedException {
+        try (FleetFollowerService service = new FleetFollowerService(PERIOD_MILLIS, TimeUnit.MILLISECONDS, 2, 1)) {
+            TestController slow = new TestController(4 * PERIOD_MILLIS, false);
+            TestController fast = new TestController();
+            FleetRobot slowRobot = service.addRobot("slow", slow);
+            FleetRobot fastRobot = service.addRobot("fast", fast);
+            service.start();
+
+            waitForUpdates(slow, 3);
+            waitForUpdates(fast, 20);
+
+            // Only the slow robot's batch is skipped while it runs, the other batch is updated every tick
+            assertTrue(service.getSkippedBatches() > 0);
+            assertEquals(service.getSkippedBatches(), service.getSkippedRobotUpdates());
+            assertTrue(fast.fUpdates.get() > 3 * slow.fUpdates.get());
+            assertEquals(0, fastRobot.getSkippedUpdates());
+            assertEquals(0, slowRobot.getSkippedUpdates());
+        }
+    }
+
+    /**
+     * A batch still running after adding a robot replaced the service's batches is still waited for
+     */
+    @Test
+    public void closeWaitsForRunningBatchesOnSharedWorkers() throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(2);
+
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicBoolean isFinished = new AtomicBoolean();
+
+            FleetFollowerService service = new FleetFollowerService(PERIOD_MILLIS, TimeUnit.MILLISECONDS, workers, 1);
+            FleetRobot blocking = service.addRobot("blocking", new PurePursuitController() {
+
+                @Override
+                public void resetFollower() {
+                }
+
+                @Override
+                public void updateFollower() {
+                    started.countDown();
+                    try {
+                        release.await();
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    isFinished.set(true);
+                }
+            });
+            service.start();
+
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // Replaces the service's batches while the old batch is still running
+            service.addRobot("other", new TestController());
+
+            Thread closer = new Thread(service::close);
+            closer.start();
+            Thread.sleep(20);
+            assertTrue(closer.isAlive());
+
+            release.countDown();
+            closer.join(5000);
+
+            assertFalse(closer.isAlive());
+            assertTrue(isFinished.get());
+            assertEquals(1, blocking.getUpdates());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+}
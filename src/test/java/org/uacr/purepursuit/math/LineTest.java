@@ -0,0 +1,147 @@
+package org.uacr.purepursuit.math;
+
+import org.junit.Test;
+import org.uacr.purepursuit.PathUtil;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks Line against the slope and angle based geometry it used before it projected with dot products.
+ * The reference methods below are that geometry, written against the current classes.
+ */
+
+public class LineTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private static double referenceLength(Line line) {
+        return Math.sqrt(Math.pow(line.delta().getX(), 2) + Math.pow(line.delta().getY(), 2));
+    }
+
+    private static Point referencePointFromDistance(Line line, double distance) {
+        return line.initial().add(new Vector(distance, line.delta().angle()));
+    }
+
+    /**
+     * Intersects the line with the perpendicular line through the point
+     */
+    private static Point referenceClosestPoint(Line line, Point point) {
+        return line.intersection(new Line(point, point.add(new Vector(1, line.angle()).rotate(90))));
+    }
+
+    private static boolean referenceIsInSegment(Line line, Point point) {
+        Point closestPoint = referenceClosestPoint(line, point);
+
+        return (PathUtil.toleranceEquals(new Vector(closestPoint.subtract(line.terminal())).angle(), new Vector(line.initial().subtract(line.terminal())).angle(), 0.00001) &&
+                PathUtil.toleranceEquals(new Vector(closestPoint.subtract(line.initial())).angle(), line.delta().angle(), 0.00001)) ||
+                point.equals(line.initial()) || point.equals(line.terminal());
+    }
+
+    private static void assertPointEquals(Point expected, Point actual) {
+        double tolerance = EPSILON * Math.max(1, Math.max(Math.abs(expected.getX()), Math.abs(expected.getY())));
+
+        assertEquals(expected.getX(), actual.getX(), tolerance);
+        assertEquals(expected.getY(), actual.getY(), tolerance);
+    }
+
+    private static void assertMatchesReference(Line line, Point point) {
+        assertEquals(referenceLength(line), line.length(), EPSILON);
+        assertPointEquals(referencePointFromDistance(line, 7.5), line.pointFromDistance(7.5));
+        assertPointEquals(referencePointFromDistance(line, -3), line.pointFromDistance(-3));
+
+        Point closestPoint = referenceClosestPoint(line, point);
+        assertPointEquals(closestPoint, line.closestPoint(point));
+
+        // The reference compares angles, which can go either way for points that project right onto an end
+        double parameter = line.project(point);
+        if (Math.abs(parameter) > 1e-6 && Math.abs(parameter - line.length()) > 1e-6) {
+            boolean isInSegment = referenceIsInSegment(line, point);
+            assertEquals(isInSegment, line.isInSegment(point));
+
+            // The reference compared angles exactly to clamp, so it is clamped to the nearer end here instead
+            Point sectionPoint = isInSegment ? closestPoint : parameter < 0 ? line.initial() : line.terminal();
+            assertPointEquals(sectionPoint, line.closestPointInSection(point));
+        }
+
+        assertEquals(new Vector(point.subtract(line.initial())).magnitude(), line.distanceFromInitial(point), EPSILON);
+        assertEquals(new Vector(point.subtract(line.terminal())).magnitude(), line.distanceFromTerminal(point), EPSILON);
+    }
+
+    @Test
+    public void matchesReference() {
+        Random random = new Random(1619);
+
+        for (int i = 0; i < 20000; i++) {
+            Line line = new Line(new Point(random.nextGaussian() * 50, random.nextGaussian() * 50),
+                    new Point(random.nextGaussian() * 50, random.nextGaussian() * 50));
+
+            assertMatchesReference(line, new Point(random.nextGaussian() * 80, random.nextGaussian() * 80));
+        }
+    }
+
+    @Test
+    public void verticalLines() {
+        Line up = new Line(new Point(1, 0), new Point(1, 10));
+        Line down = new Line(new Point(1, 10), new Point(1, 0));
+
+        for (Line line : new Line[]{up, down}) {
+            assertMatchesReference(line, new Point(4, 3));
+            assertMatchesReference(line, new Point(-4, 13));
+            assertMatchesReference(line, new Point(-2, -3));
+        }
+
+        assertPointEquals(new Point(1, 3), up.closestPoint(new Point(4, 3)));
+        assertPointEquals(new Point(1, 10), up.closestPointInSection(new Point(4, 13)));
+        assertPointEquals(new Point(1, 0), down.closestPointInSection(new Point(-4, -3)));
+        assertPointEquals(new Point(1, 8), down.pointFromDistance(2));
+    }
+
+    @Test
+    public void horizontalLines() {
+        Line line = new Line(new Point(0, 2), new Point(10, 2));
+
+        assertMatchesReference(line, new Point(4, 7));
+        assertMatchesReference(line, new Point(-4, -7));
+        assertMatchesReference(line, new Point(14, 7));
+    }
+
+    /**
+     * The reference couldn't find the closest point on a line with no length and threw from isInSegment.
+     * A line with no length is now the single point it starts and ends at.
+     */
+    @Test
+    public void degenerateLines() {
+        Point point = new Point(3, 3);
+        Line line = new Line(point, point);
+
+        assertNull(referenceClosestPoint(line, new Point(4, 7)));
+
+        assertEquals(0, line.length(), 0);
+        assertEquals(0, line.project(new Point(4, 7)), 0);
+        assertPointEquals(point, line.closestPoint(new Point(4, 7)));
+        assertPointEquals(point, line.closestPointInSection(new Point(4, 7)));
+        assertPointEquals(point, line.pointFromDistance(2));
+        assertTrue(line.isInSegment(point));
+    }
+
+    @Test
+    public void parallelLines() {
+        Line line = new Line(new Point(0, 0), new Point(10, 0));
+
+        assertNull(line.intersection(new Line(new Point(0, 5), new Point(10, 5))));
+        assertNull(line.intersection(new Line(new Point(20, 0), new Point(30, 0))));
+        assertNull(new Line(new Point(1, 0), new Point(1, 10)).intersection(new Line(new Point(3, -2), new Point(3, 7))));
+
+        // Each end of a parallel line projects to the same offset from the line
+        Line parallel = line.shift(new Vector(0, 0, 3, 5));
+        assertPointEquals(new Point(3, 0), line.closestPoint(parallel.initial()));
+        assertPointEquals(new Point(13, 0), line.closestPoint(parallel.terminal()));
+        assertPointEquals(new Point(10, 0), line.closestPointInSection(parallel.terminal()));
+
+        assertPointEquals(new Point(5, 0), line.intersection(new Line(new Point(5, -5), new Point(5, 5))));
+    }
+}
@@ -0,0 +1,33 @@
+package org.uacr.purepursuit.math;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class VectorTest {
+
+    @Test
+    public void normalize() {
+        Vector unit = Vector.fromCartesian(3, 4).normalize();
+
+        assertEquals(0.6, unit.getX(), 1e-12);
+        assertEquals(0.8, unit.getY(), 1e-12);
+        assertEquals(1, unit.magnitude(), 1e-12);
+    }
+
+    /**
+     * A vector with no length has always normalized to the unit vector at its angle instead of NaN
+     */
+    @Test
+    public void normalizeZeroVector() {
+        Vector unit = new Vector().normalize();
+
+        assertEquals(1, unit.getX(), 0);
+        assertEquals(0, unit.getY(), 0);
+
+        Vector fromPoints = new Vector(new Point(5, 5), new Point(5, 5)).normalize();
+
+        assertEquals(1, fromPoints.getX(), 0);
+        assertEquals(0, fromPoints.getY(), 0);
+    }
+}
@@ -0,0 +1,184 @@
+package org.uacr.purepursuit.odometry;
+
+import org.junit.Test;
+import org.uacr.purepursuit.math.Pose2d;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class OdometryIntegratorTest {
+
+    private static final double TRACK_WIDTH = 20;
+
+    private static class FakeSource implements OdometrySource {
+
+        private double mLeftDistance = 0;
+        private double mRightDistance = 0;
+        private double mHeading = Double.NaN;
+
+        private void set(double leftDistance, double rightDistance, double heading) {
+            mLeftDistance = leftDistance;
+            mRightDistance = rightDistance;
+            mHeading = heading;
+        }
+
+        @Override
+        public double getLeftDistance() {
+            return mLeftDistance;
+        }
+
+        @Override
+        public double getRightDistance() {
+            return mRightDistance;
+        }
+
+        @Override
+        public double getHeading() {
+            return mHeading;
+        }
+    }
+
+    private static double[] readPose(OdometryIntegrator odometry) {
+        double[] pose = new double[3];
+        odometry.readPose(pose);
+        return pose;
+    }
+
+    @Test
+    public void firstSampleStartsAtOrigin() {
+        FakeSource source = new FakeSource();
+        source.set(35, 40, 70);
+        OdometryIntegrator odometry = new OdometryIntegrator(source, TRACK_WIDTH);
+
+        assertEquals(0, odometry.readPose(new double[3]));
+
+        odometry.sample();
+
+        assertNotEquals(0, odometry.readPose(new double[3]));
+        assertArrayEquals(new double[]{0, 0, 0}, readPose(odometry), 0);
+        assertEquals(1, odometry.getSamples());
+    }
+
+    @Test
+    public void straightLine() {
+        FakeSource source = new FakeSource();
+        OdometryIntegrator odometry = new OdometryIntegrator(source, TRACK_WIDTH);
+        odometry.setPose(new Pose2d(0, 0, 30));
+        odometry.sample();
+
+        for (int step = 1; step <= 10; step++) {
+            source.set(step, step, Double.NaN);
+            odometry.sample();
+        }
+
+        double radians = Math.toRadians(30);
+        assertArrayEquals(new double[]{10 * Math.cos(radians), 10 * Math.sin(radians), 30}, readPose(odometry), 1e-9);
+    }
+
+    @Test
+    public void pureRotation() {
+        FakeSource source = new FakeSource();
+        OdometryIntegrator odometry = new OdometryIntegrator(source, TRACK_WIDTH);
+        odometry.sample();
+
+        double quarterTurn = Math.PI / 2 * TRACK_WIDTH / 2;
+        source.set(-quarterTurn, quarterTurn, Double.NaN);
+        odometry.sample();
+
+        assertArrayEquals(new double[]{0, 0, 90}, readPose(odometry), 1e-9);
+    }
+
+    /**
+     * Each sample moves along an arc, so a quarter circle lands exactly where the closed form puts it
+     * however coarsely it is sampled
+     */
+    @Test
+    public void quarterCircleMatchesClosedForm() {
+        double radius = 50;
+        double quarter = Math.PI / 2;
+
+        for (int steps : new int[]{1, 3, 100}) {
+            for (boolean hasGyro : new boolean[]{false, true}) {
+                FakeSource source = new FakeSource();
+                OdometryIntegrator odometry = new OdometryIntegrator(source, TRACK_WIDTH);
+                source.set(0, 0, hasGyro ? 0 : Double.NaN);
+                odometry.sample();
+
+                for (int step = 1; step <= steps; step++) {
+                    double angle = quarter * step / steps;
+                    source.set((radius - TRACK_WIDTH / 2) * angle, (radius + TRACK_WIDTH / 2) * angle,
+                            hasGyro ? Math.toDegrees(angle) : Double.NaN);
+                    odometry.sample();
+                }
+
+                assertArrayEquals(new double[]{radius, radius, 90}, readPose(odometry), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void gyroIsUsedOverEncoders() {
+        FakeSource source = new FakeSource();
+        OdometryIntegrator odometry = new OdometryIntegrator(source, TRACK_WIDTH);
+        source.set(0, 0, 170);
+        odometry.sample();
+
+        // The encoders say straight, the gyro says the robot turned 20 degrees across the wrap
+        source.set(10, 10, -170);
+        odometry.sample();
+
+        assertEquals(20, readPose(odometry)[2], 1e-9);
+    }
+
+    @Test
+    public void nanGyroFallsBackToEncoders() {
+        FakeSource source = new FakeSource();
+        OdometryIntegrator odometry = new OdometryIntegrator(source, TRACK_WIDTH);
+        source.set(0, 0, 0);
+        odometry.sample();
+
+        double turn = Math.toRadians(30) * TRACK_WIDTH / 2;
+
+        // The gyro drops out, the heading follows the difference between the sides
+        source.set(-turn, turn, Double.NaN);
+        odometry.sample();
+        assertEquals(30, readPose(odometry)[2], 1e-9);
+
+        // The first reading after it comes back only sets where the gyro starts from
+        source.set(-2 * turn, 2 * turn, 500);
+        odometry.sample();
+        assertEquals(60, readPose(odometry)[2], 1e-9);
+
+        source.set(-2 * turn, 2 * turn, 510);
+        odometry.sample();
+        assertEquals(70, readPose(odometry)[2], 1e-9);
+    }
+
+    @Test
+    public void setPoseAppliesOnNextSample() {
+        FakeSource source = new FakeSource();
+        OdometryIntegrator odometry = new OdometryIntegrator(source, TRACK_WIDTH);
+        odometry.sample();
+
+        source.set(10, 10, Double.NaN);
+        odometry.sample();
+
+        odometry.setPose(new Pose2d(5, 6, 90));
+        assertArrayEquals(new double[]{10, 0, 0}, readPose(odometry), 1e-9);
+
+        // The movement since the last sample is dropped, the robot is where it was put
+        source.set(25, 25, Double.NaN);
+        odometry.sample();
+        assertArrayEquals(new double[]{5, 6, 90}, readPose(odometry), 1e-9);
+
+        source.set(35, 35, Double.NaN);
+        odometry.sample();
+        assertArrayEquals(new double[]{5, 16, 90}, readPose(odometry), 1e-9);
+
+        Pose2d pose = odometry.getPose();
+        assertEquals(5, pose.getX(), 1e-9);
+        assertEquals(16, pose.getY(), 1e-9);
+        assertEquals(90, pose.getHeading(), 1e-9);
+    }
+}
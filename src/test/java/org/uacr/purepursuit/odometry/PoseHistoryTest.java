@@ -0,0 +1,157 @@
+package org.uacr.purepursuit.odometry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PoseHistoryTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    private static double[] getPose(PoseHistory history, long timestamp) {
+        double[] pose = new double[3];
+        assertTrue(history.getPose(timestamp, pose));
+        return pose;
+    }
+
+    @Test
+    public void emptyHistoryHasNoPose() {
+        PoseHistory history = new PoseHistory(8);
+
+        assertFalse(history.getPose(0, new double[3]));
+        assertEquals(0, history.size());
+        assertEquals(Long.MIN_VALUE, history.getNewestTimestamp());
+    }
+
+    @Test
+    public void capacityRoundsUpToPowerOfTwo() {
+        assertEquals(2, new PoseHistory(1).getCapacity());
+        assertEquals(8, new PoseHistory(8).getCapacity());
+        assertEquals(16, new PoseHistory(9).getCapacity());
+    }
+
+    @Test
+    public void interpolatesBetweenPoses() {
+        PoseHistory history = new PoseHistory(8);
+        history.add(0, 0, 0, 0);
+        history.add(10 * MILLIS, 10, 20, 40);
+        history.add(20 * MILLIS, 10, 40, 80);
+
+        assertArrayEquals(new double[]{0, 0, 0}, getPose(history, 0), 1e-9);
+        assertArrayEquals(new double[]{2.5, 5, 10}, getPose(history, 2500 * 1000), 1e-9);
+        assertArrayEquals(new double[]{10, 20, 40}, getPose(history, 10 * MILLIS), 1e-9);
+        assertArrayEquals(new double[]{10, 30, 60}, getPose(history, 15 * MILLIS), 1e-9);
+    }
+
+    @Test
+    public void extrapolatesPastNewestPose() {
+        PoseHistory history = new PoseHistory(8);
+        history.add(0, 0, 0, 0);
+        history.add(10 * MILLIS, 10, 5, 20);
+
+        assertArrayEquals(new double[]{10, 5, 20}, getPose(history, 10 * MILLIS), 1e-9);
+        assertArrayEquals(new double[]{15, 7.5, 30}, getPose(history, 15 * MILLIS), 1e-9);
+    }
+
+    @Test
+    public void extrapolationIsClamped() {
+        PoseHistory history = new PoseHistory(8);
+        history.add(0, 0, 0, 0);
+        history.add(10 * MILLIS, 1, 0, 0);
+
+        assertArrayEquals(new double[]{11, 0, 0}, getPose(history, 110 * MILLIS), 1e-9);
+        assertArrayEquals(new double[]{11, 0, 0}, getPose(history, 10_000 * MILLIS), 1e-9);
+
+        history.setMaxExtrapolationNanos(20 * MILLIS);
+        assertArrayEquals(new double[]{3, 0, 0}, getPose(history, 10_000 * MILLIS), 1e-9);
+
+        history.setMaxExtrapolationNanos(-1);
+        assertEquals(0, history.getMaxExtrapolationNanos());
+        assertArrayEquals(new double[]{1, 0, 0}, getPose(history, 10_000 * MILLIS), 1e-9);
+    }
+
+    @Test
+    public void singlePoseIsNotExtrapolated() {
+        PoseHistory history = new PoseHistory(8);
+        history.add(10 * MILLIS, 4, 5, 6);
+
+        assertArrayEquals(new double[]{4, 5, 6}, getPose(history, 0), 0);
+        assertArrayEquals(new double[]{4, 5, 6}, getPose(history, 50 * MILLIS), 0);
+    }
+
+    @Test
+    public void timesBeforeOldestGiveOldestPose() {
+        PoseHistory history = new PoseHistory(8);
+        history.add(10 * MILLIS, 1, 2, 3);
+        history.add(20 * MILLIS, 4, 5, 6);
+
+        assertArrayEquals(new double[]{1, 2, 3}, getPose(history, 10 * MILLIS), 0);
+        assertArrayEquals(new double[]{1, 2, 3}, getPose(history, 0), 0);
+        assertArrayEquals(new double[]{1, 2, 3}, getPose(history, -1000 * MILLIS), 0);
+    }
+
+    @Test
+    public void ringWrapsAroundAtCapacity() {
+        PoseHistory history = new PoseHistory(4);
+
+        for (int pose = 0; pose < 11; pose++) {
+            history.add(pose * 10 * MILLIS, pose, -pose, 0);
+        }
+
+        assertEquals(4, history.size());
+        assertEquals(100 * MILLIS, history.getNewestTimestamp());
+
+        // Poses 7 to 10 are kept, older times give pose 7
+        assertArrayEquals(new double[]{7, -7, 0}, getPose(history, 30 * MILLIS), 0);
+        assertArrayEquals(new double[]{7, -7, 0}, getPose(history, 70 * MILLIS), 0);
+
+        for (long timestamp = 70 * MILLIS; timestamp <= 100 * MILLIS; timestamp += MILLIS) {
+            double expected = timestamp / (10.0 * MILLIS);
+            assertArrayEquals(new double[]{expected, -expected, 0}, getPose(history, timestamp), 1e-9);
+        }
+
+        history.clear();
+        assertEquals(0, history.size());
+        assertFalse(history.getPose(100 * MILLIS, new double[3]));
+    }
+
+    @Test
+    public void headingTurnsShortWayAcrossWrap() {
+        PoseHistory history = new PoseHistory(8);
+        history.add(0, 0, 0, 170);
+        history.add(10 * MILLIS, 0, 0, -170);
+
+        assertEquals(175, getPose(history, 2500 * 1000)[2], 1e-9);
+        assertEquals(180, Math.abs(getPose(history, 5 * MILLIS)[2]), 1e-9);
+        assertEquals(-175, getPose(history, 7500 * 1000)[2], 1e-9);
+        assertEquals(-160, getPose(history, 15 * MILLIS)[2], 1e-9);
+
+        history.add(20 * MILLIS, 0, 0, 170);
+        assertEquals(-175, getPose(history, 12500 * 1000)[2], 1e-9);
+    }
+
+    @Test
+    public void sameTimestampReplacesNewest() {
+        PoseHistory history = new PoseHistory(8);
+        history.add(0, 0, 0, 0);
+        history.add(10 * MILLIS, 1, 1, 1);
+
+        assertTrue(history.add(10 * MILLIS, 2, 2, 2));
+        assertEquals(2, history.size());
+        assertArrayEquals(new double[]{2, 2, 2}, getPose(history, 10 * MILLIS), 0);
+        assertArrayEquals(new double[]{1, 1, 1}, getPose(history, 5 * MILLIS), 1e-9);
+    }
+
+    @Test
+    public void olderPoseIsRejected() {
+        PoseHistory history = new PoseHistory(8);
+        history.add(10 * MILLIS, 1, 1, 1);
+
+        assertFalse(history.add(5 * MILLIS, 2, 2, 2));
+        assertEquals(1, history.size());
+        assertArrayEquals(new double[]{1, 1, 1}, getPose(history, 10 * MILLIS), 0);
+    }
+}
@@ -0,0 +1,70 @@
+package org.uacr.purepursuit.path;
+
+import org.junit.Test;
+import org.uacr.purepursuit.math.Point;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that a builder can be built more than once and gives the same path each time
+ */
+
+public class PathBuilderTest {
+
+    private static PathBuilder createBuilder() {
+        return PathBuilder.start(0, 0)
+                .lineTo(60, 0)
+                .lineTo(60, 60)
+                .pointsTo(new Point(90, 90), new Point(120, 90));
+    }
+
+    @Test
+    public void buildTwice() {
+        PathBuilder builder = createBuilder();
+
+        Path first = builder.build();
+        Path second = builder.build();
+
+        assertEquals(2, first.getSegmentCount());
+        assertEquals(first.getSegmentCount(), second.getSegmentCount());
+        assertEquals(first.length(), second.length(), 0);
+    }
+
+    @Test
+    public void buildTwiceWithCache() {
+        PathBuilder builder = createBuilder();
+        PathCache cache = new PathCache(1 << 20);
+
+        Path first = builder.build(cache);
+        Path second = builder.build(cache);
+
+        assertEquals(2, first.getSegmentCount());
+        assertEquals(first.getSegmentCount(), second.getSegmentCount());
+    }
+
+    @Test
+    public void extendAfterBuild() {
+        PathBuilder builder = PathBuilder.start(0, 0).lineTo(60, 0);
+
+        assertEquals(1, builder.build().getSegmentCount());
+
+        Path extended = builder.lineTo(60, 60).build();
+
+        assertEquals(2, extended.getSegmentCount());
+        assertEquals(120, extended.length(), 1e-9);
+    }
+
+    @Test
+    public void registerBuiltBuilder() {
+        PathBuilder builder = createBuilder();
+        Path built = builder.build();
+
+        Map<String, Path> paths = new PathRegistry()
+                .add("Path", builder)
+                .build();
+
+        assertEquals(built.getSegmentCount(), paths.get("Path").getSegmentCount());
+    }
+}
@@ -0,0 +1,60 @@
+package org.uacr.purepursuit.path;
+
+import org.junit.Test;
+import org.uacr.purepursuit.math.Point;
+import org.uacr.purepursuit.path.segment.PointSegment;
+import org.uacr.purepursuit.path.segment.PointSmoother;
+import org.uacr.purepursuit.path.segment.Segment;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+
+/**
+ * Checks that every setting that changes how a point segment is built changes its cache key
+ */
+
+public class PathCacheTest {
+
+    private static List<Segment> createSegments(Consumer<PointSegment> configure) {
+        PointSegment segment = new PointSegment(new Point(0, 0), new Point(60, 0), new Point(60, 60));
+        configure.accept(segment);
+        return Collections.singletonList(segment);
+    }
+
+    private static long fingerprint(Consumer<PointSegment> configure) {
+        return PathCache.fingerprint(createSegments(configure), new PathConstrains());
+    }
+
+    @Test
+    public void sameSettingsGiveSameFingerprint() {
+        assertEquals(fingerprint(segment -> { }), fingerprint(segment -> { }));
+    }
+
+    @Test
+    public void smoothingSettingsChangeFingerprint() {
+        long fingerprint = fingerprint(segment -> { });
+
+        assertNotEquals("Smoothing", fingerprint, fingerprint(segment -> segment.setPathSmoothing(0.75)));
+        assertNotEquals("Tolerance", fingerprint, fingerprint(segment -> segment.getSmoother().setTolerance(0.001)));
+        assertNotEquals("Convergence criterion", fingerprint,
+                fingerprint(segment -> segment.getSmoother().setConvergenceCriterion(PointSmoother.ConvergenceCriterion.MAX_CHANGE)));
+        assertNotEquals("Max iterations", fingerprint, fingerprint(segment -> segment.getSmoother().setMaxIterations(10)));
+        assertNotEquals("Search window", fingerprint, fingerprint(segment -> segment.setSearchWindow(8)));
+    }
+
+    @Test
+    public void differentToleranceIsNotShared() {
+        PathCache cache = new PathCache(1 << 20);
+
+        Path path = cache.getPath(createSegments(segment -> { }), new PathConstrains());
+        Path otherPath = cache.getPath(createSegments(segment -> segment.getSmoother().setTolerance(0.001)), new PathConstrains());
+
+        assertNotSame(path, otherPath);
+        assertEquals(2, cache.getMisses());
+    }
+}
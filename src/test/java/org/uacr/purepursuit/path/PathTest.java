@@ -0,0 +1,117 @@
+package org.uacr.purepursuit.path;
+
+import org.junit.Test;
+import org.uacr.purepursuit.math.Point;
+import org.uacr.purepursuit.math.Pose2d;
+import org.uacr.purepursuit.path.segment.PointSegment;
+import org.uacr.purepursuit.path.segment.Segment;
+import org.uacr.purepursuit.path.segment.SegmentCursor;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class PathTest {
+
+    private static Path createPath(PathConstrains constrains) {
+        return PathBuilder.start(0, 0, constrains).lineTo(60, 0).lineTo(60, 60).build();
+    }
+
+    @Test
+    public void constraintsAreCopied() {
+        PathConstrains constrains = new PathConstrains();
+        constrains.lookaheadDistance = 12;
+
+        Path path = createPath(constrains);
+
+        constrains.lookaheadDistance = 40;
+        assertEquals(12, path.getLookaheadDistance(), 0);
+        assertEquals(12, path.getConstraints().lookaheadDistance, 0);
+
+        path.getConstraints().lookaheadDistance = 40;
+        assertEquals(12, path.getLookaheadDistance(), 0);
+        assertEquals(12, path.getConstraints().lookaheadDistance, 0);
+        assertNotSame(path.getConstraints(), path.getConstraints());
+    }
+
+    @Test
+    public void pointSegmentIsFrozenInPath() {
+        PointSegment segment = new PointSegment(new Point(0, 0), new Point(60, 0), new Point(60, 60));
+        segment.setSearchWindow(32);
+        assertFalse(segment.isBuilt());
+
+        Path path = Path.createCompoundPath(Collections.singletonList(segment), new PathConstrains());
+        double length = path.length();
+
+        assertTrue(segment.isBuilt());
+        assertThrows(IllegalStateException.class, () -> segment.setPointSpacing(2));
+        assertThrows(IllegalStateException.class, () -> segment.setPathSmoothing(0.75));
+        assertThrows(IllegalStateException.class, () -> segment.setSearchWindow(8));
+
+        segment.getSmoother().setSmoothing(0.75);
+        assertEquals(0.5, segment.getPathSmoothing(), 0);
+        assertEquals(32, segment.getSearchWindow());
+        assertEquals(length, segment.length(), 0);
+    }
+
+    /**
+     * The deprecated pose methods follow the path exactly the way a cursor does
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    public void deprecatedMethodsFollowLikeCursor() {
+        Path path = createPath(new PathConstrains());
+        PathCursor cursor = path.createCursor();
+
+        for (int step = 0; step <= 140; step++) {
+            Pose2d pose = step <= 60 ? new Pose2d(step, 0.5, 0) : new Pose2d(59.5, Math.min(step - 60, 62), 90);
+
+            assertEquals(cursor.getVelocity(pose), path.getVelocity(pose), 0);
+
+            Point expected = cursor.getLookaheadPoint(pose);
+            Point actual = path.getLookaheadPoint(pose);
+            assertEquals(expected.getX(), actual.getX(), 0);
+            assertEquals(expected.getY(), actual.getY(), 0);
+
+            assertEquals(cursor.isDone(pose), path.isDone(pose));
+        }
+
+        assertTrue(path.isDone(new Pose2d(60, 62, 90)));
+
+        path.reset();
+        assertFalse(path.isDone(new Pose2d(0, 0, 0)));
+    }
+
+    /**
+     * The deprecated segment pose methods follow the segment exactly the way a cursor does
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    public void deprecatedSegmentMethodsFollowLikeCursor() {
+        Path path = createPath(new PathConstrains());
+        Segment segment = path.getSegment(0);
+        SegmentCursor cursor = new SegmentCursor();
+        segment.setLookaheadDistance(12);
+
+        for (int step = 0; step <= 70; step++) {
+            Pose2d pose = new Pose2d(step, 0.5, 0);
+
+            Point expected = segment.getLookaheadPoint(cursor, pose, 12);
+            Point actual = segment.getLookaheadPoint(pose);
+            assertEquals(expected.getX(), actual.getX(), 0);
+            assertEquals(expected.getY(), actual.getY(), 0);
+
+            assertEquals(segment.getDistance(cursor, pose), segment.getDistance(pose), 0);
+            assertEquals(segment.isDone(cursor, pose), segment.isDone(pose));
+        }
+
+        assertEquals(12, segment.getLookaheadDistance(), 0);
+        assertSame(segment, segment.copy());
+        assertSame(path, path.copy());
+    }
+}
@@ -0,0 +1,195 @@
+package org.uacr.purepursuit.path.segment;
+
+import org.junit.Test;
+import org.uacr.purepursuit.math.Point;
+import org.uacr.purepursuit.math.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the smoother against the list based smoothing PointSegment used before it,
+ * and that smoothing a large set of points in parallel gives exactly the same points as smoothing it on one thread
+ */
+
+public class PointSmootherTest {
+
+    private static final int POINT_COUNT = 12_000;
+
+    /**
+     * A filled zig zag, so every point away from the ends has somewhere to move
+     */
+    private static double[][] createPoints() {
+        double[] xs = new double[POINT_COUNT];
+        double[] ys = new double[POINT_COUNT];
+
+        for (int i = 0; i < POINT_COUNT; i++) {
+            xs[i] = i * 0.25;
+            ys[i] = (i / 200) % 2 == 0 ? (i % 200) * 0.25 : (200 - i % 200) * 0.25;
+        }
+
+        return new double[][]{xs, ys};
+    }
+
+    private static PointSmoother createSmoother(PointSmoother.ConvergenceCriterion criterion, double tolerance, int maxIterations) {
+        PointSmoother smoother = new PointSmoother();
+        smoother.setSmoothing(0.5);
+        smoother.setConvergenceCriterion(criterion);
+        smoother.setTolerance(tolerance);
+        smoother.setMaxIterations(maxIterations);
+        return smoother;
+    }
+
+    private static void assertParallelMatchesSequential(PointSmoother.ConvergenceCriterion criterion, double tolerance, int maxIterations) {
+        double[][] sequential = createPoints();
+        PointSmoother sequentialSmoother = createSmoother(criterion, tolerance, maxIterations);
+        sequentialSmoother.setParallelThreshold(Integer.MAX_VALUE);
+        int sequentialIterations = sequentialSmoother.smooth(sequential[0], sequential[1], POINT_COUNT);
+
+        double[][] parallel = createPoints();
+        PointSmoother parallelSmoother = createSmoother(criterion, tolerance, maxIterations);
+        parallelSmoother.setParallelThreshold(0);
+        // Chunks that don't divide the points evenly, so the last chunk is a different size
+        parallelSmoother.setChunkSize(1000);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        int parallelIterations;
+        try {
+            parallelSmoother.setPool(pool);
+            parallelIterations = parallelSmoother.smooth(parallel[0], parallel[1], POINT_COUNT);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertTrue(sequentialIterations > 1);
+        assertEquals(sequentialIterations, parallelIterations);
+        assertArrayEquals(sequential[0], parallel[0], 0);
+        assertArrayEquals(sequential[1], parallel[1], 0);
+    }
+
+    /**
+     * The smoothing PointSegment did on its list of points before the smoother, every vector built from a magnitude and angle
+     *
+     * @return the number of passes made
+     */
+    private static int referenceSmooth(List<Point> points, double smoothing) {
+        double change = 0.5;
+        double changedPoints = 1;
+        int iterations = 0;
+
+        while (change / changedPoints >= 0.01) {
+            change = 0;
+            changedPoints = 0;
+
+            List<Point> newPoints = new ArrayList<>(points);
+
+            for (int i = 1; i < points.size() - 1; i++) {
+                Point point = points.get(i);
+
+                Vector middle = new Vector(points.get(i + 1).subtract(points.get(i - 1)));
+
+                middle = new Vector(points.get(i - 1).add(new Vector(middle.magnitude() / 2, middle.angle())));
+
+                Vector delta = new Vector(middle.subtract(point));
+
+                Point newPoint = point.add(new Vector(delta.magnitude() * smoothing, delta.angle()));
+
+                if (!Double.isNaN(newPoint.getX()) && !Double.isNaN(newPoint.getY())) {
+                    newPoints.set(i, newPoint);
+                    change += point.distance(newPoint);
+                    changedPoints++;
+                }
+            }
+
+            points.clear();
+            points.addAll(newPoints);
+            iterations++;
+        }
+
+        return iterations;
+    }
+
+    /**
+     * The default settings, average change below 0.01 with a smoothing of 0.5, on the filled points of a few waypoints
+     */
+    @Test
+    public void matchesReference() {
+        // Long straight legs converge in one pass on the average change, the short zig zag takes dozens
+        double[][] paths = {
+                {0, 0, 60, 0, 60, 60},
+                {0, 0, 30, 10, 50, -20, 90, 40, 120, 40},
+                {0, 0, 0, 100, -40, 100, -40, 20},
+                {0, 0, 4, 4, 8, 0, 12, 4, 16, 0, 20, 4, 24, 0, 28, 4, 32, 0}
+        };
+
+        for (double[] waypoints : paths) {
+            PointSegment segment = new PointSegment(createWaypoints(waypoints));
+            double[] filledXs = segment.getXs();
+            double[] filledYs = segment.getYs();
+
+            // Fills the segment again without smoothing it, to get the points the smoother started from
+            PointSegment filled = new PointSegment(createWaypoints(waypoints));
+            filled.getSmoother().setMaxIterations(0);
+            double[] xs = filled.getXs();
+            double[] ys = filled.getYs();
+
+            List<Point> points = new ArrayList<>();
+            for (int p = 0; p < xs.length; p++) {
+                points.add(new Point(xs[p], ys[p]));
+            }
+
+            int referenceIterations = referenceSmooth(points, 0.5);
+            int iterations = new PointSmoother().smooth(xs, ys, xs.length);
+
+            assertEquals(referenceIterations, iterations);
+            assertEquals(points.size(), xs.length);
+
+            for (int p = 0; p < xs.length; p++) {
+                assertEquals("Point " + p, points.get(p).getX(), xs[p], 1e-9);
+                assertEquals("Point " + p, points.get(p).getY(), ys[p], 1e-9);
+                assertEquals("Point " + p, filledXs[p], xs[p], 0);
+                assertEquals("Point " + p, filledYs[p], ys[p], 0);
+            }
+        }
+    }
+
+    private static List<Point> createWaypoints(double[] coordinates) {
+        List<Point> waypoints = new ArrayList<>();
+        for (int c = 0; c < coordinates.length; c += 2) {
+            waypoints.add(new Point(coordinates[c], coordinates[c + 1]));
+        }
+        return waypoints;
+    }
+
+    @Test
+    public void parallelMatchesSequentialUntilConverged() {
+        assertParallelMatchesSequential(PointSmoother.ConvergenceCriterion.MAX_CHANGE, 0.001, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The chunks add up the average change in a different order, so the pass count is fixed to compare the points exactly
+     */
+    @Test
+    public void parallelMatchesSequentialForFixedPasses() {
+        assertParallelMatchesSequential(PointSmoother.ConvergenceCriterion.AVERAGE_CHANGE, 0, 250);
+    }
+
+    @Test
+    public void endsDoNotMove() {
+        double[][] points = createPoints();
+        PointSmoother smoother = createSmoother(PointSmoother.ConvergenceCriterion.AVERAGE_CHANGE, 0.01, Integer.MAX_VALUE);
+        smoother.setParallelThreshold(0);
+        smoother.smooth(points[0], points[1], POINT_COUNT);
+
+        double[][] original = createPoints();
+        assertEquals(original[0][0], points[0][0], 0);
+        assertEquals(original[1][0], points[1][0], 0);
+        assertEquals(original[0][POINT_COUNT - 1], points[0][POINT_COUNT - 1], 0);
+        assertEquals(original[1][POINT_COUNT - 1], points[1][POINT_COUNT - 1], 0);
+    }
+}
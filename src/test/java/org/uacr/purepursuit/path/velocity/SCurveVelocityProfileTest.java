@@ -0,0 +1,184 @@
+package org.uacr.purepursuit.path.velocity;
+
+import org.junit.Test;
+import org.uacr.purepursuit.PathUtil;
+import org.uacr.purepursuit.path.PathConstrains;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SCurveVelocityProfileTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private static PathConstrains createConstraints() {
+        PathConstrains constrains = new PathConstrains();
+        constrains.maxVelocity = 1;
+        constrains.minVelocity = 0.1;
+        constrains.maxAcceleration = 0.01;
+        constrains.maxDeceleration = 0.02;
+        constrains.maxJerk = 0.0005;
+        return constrains;
+    }
+
+    private static Map<Double, Double> createSpeedReductions(Random random, double minGap, double maxGap) {
+        Map<Double, Double> speedReductions = new HashMap<>();
+        double distance = 0;
+
+        for (int r = random.nextInt(5); r > 0; r--) {
+            distance += minGap + random.nextDouble() * (maxGap - minGap);
+            speedReductions.put(distance, random.nextDouble());
+        }
+
+        return speedReductions;
+    }
+
+    private static double getLength(Map<Double, Double> speedReductions, double gap) {
+        double length = gap;
+        for (double reductionDistance : speedReductions.keySet()) {
+            length = Math.max(length, reductionDistance + gap);
+        }
+        return length;
+    }
+
+    /**
+     * The velocity of a piece is quadratic in distance, so its jerk is constant
+     * and its acceleration is largest at one of its ends
+     */
+    private static void assertWithinConstraints(PathConstrains constrains, SCurveVelocityProfile profile) {
+        double[] starts = profile.getStarts();
+        double[] constants = profile.getConstants();
+        double[] linears = profile.getLinears();
+        double[] quadratics = profile.getQuadratics();
+
+        for (int p = 0; p < constants.length; p++) {
+            double width = starts[p + 1] - starts[p];
+
+            assertTrue("Piece " + p + " runs backwards", width >= 0);
+            assertTrue("Piece " + p + " jerk " + 2 * quadratics[p], Math.abs(2 * quadratics[p]) <= constrains.maxJerk + EPSILON);
+
+            for (double acceleration : new double[]{linears[p], linears[p] + 2 * quadratics[p] * width}) {
+                assertTrue("Piece " + p + " acceleration " + acceleration,
+                        -constrains.maxDeceleration - EPSILON <= acceleration && acceleration <= constrains.maxAcceleration + EPSILON);
+            }
+
+            double endVelocity = constants[p] + width * (linears[p] + width * quadratics[p]);
+            assertTrue(constants[p] <= constrains.maxVelocity + EPSILON && endVelocity <= constrains.maxVelocity + EPSILON);
+
+            // Pieces join without a jump in velocity or acceleration
+            if (p + 1 < constants.length) {
+                assertEquals("Velocity at piece " + (p + 1), endVelocity, constants[p + 1], 1e-7);
+                assertEquals("Acceleration at piece " + (p + 1), linears[p] + 2 * quadratics[p] * width, linears[p + 1], 1e-7);
+            }
+        }
+    }
+
+    @Test
+    public void staysWithinJerkAndAcceleration() {
+        PathConstrains constrains = createConstraints();
+        Random random = new Random(1619);
+
+        for (int set = 0; set < 300; set++) {
+            // Gaps from far too short to get back to the max velocity to long enough to cruise
+            Map<Double, Double> speedReductions = createSpeedReductions(random, 5, 400);
+            double length = getLength(speedReductions, 5 + random.nextDouble() * 400);
+
+            assertWithinConstraints(constrains, new SCurveVelocityProfile(constrains, length, speedReductions));
+        }
+    }
+
+    /**
+     * With enough room between them the robot slows to exactly every reduced speed
+     */
+    @Test
+    public void reachesReducedSpeeds() {
+        PathConstrains constrains = createConstraints();
+        Random random = new Random(7);
+
+        for (int set = 0; set < 300; set++) {
+            // Speeding up from the min velocity to the max velocity takes 110 inches, slowing down takes 85
+            Map<Double, Double> speedReductions = createSpeedReductions(random, 200, 400);
+            double length = getLength(speedReductions, 200);
+
+            SCurveVelocityProfile profile = new SCurveVelocityProfile(constrains, length, speedReductions);
+
+            assertEquals(constrains.minVelocity, profile.getVelocity(0), EPSILON);
+            assertEquals(constrains.minVelocity, profile.getVelocity(length), EPSILON);
+
+            for (Map.Entry<Double, Double> speedReduction : speedReductions.entrySet()) {
+                double reducedSpeed = PathUtil.interpolate(speedReduction.getValue(), 0, 1, constrains.maxVelocity, constrains.minVelocity);
+
+                assertEquals(reducedSpeed, profile.getVelocity(speedReduction.getKey()), 1e-7);
+            }
+
+            // Gets all the way to the max velocity between the reductions
+            double highest = 0;
+            for (int step = 0; step <= 10000; step++) {
+                highest = Math.max(highest, profile.getVelocity(length * step / 10000));
+            }
+            assertEquals(constrains.maxVelocity, highest, 1e-7);
+        }
+    }
+
+    /**
+     * Reductions too close together to be reached are lowered so the robot can still slow down for the next one
+     */
+    @Test
+    public void neverPassesReducedSpeeds() {
+        PathConstrains constrains = createConstraints();
+        Random random = new Random(11);
+
+        for (int set = 0; set < 300; set++) {
+            Map<Double, Double> speedReductions = createSpeedReductions(random, 1, 60);
+            double length = getLength(speedReductions, 1 + random.nextDouble() * 60);
+
+            SCurveVelocityProfile profile = new SCurveVelocityProfile(constrains, length, speedReductions);
+
+            for (Map.Entry<Double, Double> speedReduction : speedReductions.entrySet()) {
+                double reducedSpeed = PathUtil.interpolate(speedReduction.getValue(), 0, 1, constrains.maxVelocity, constrains.minVelocity);
+
+                assertTrue(profile.getVelocity(speedReduction.getKey()) <= reducedSpeed + 1e-7);
+            }
+            assertTrue(profile.getVelocity(length) <= constrains.minVelocity + 1e-7);
+        }
+    }
+
+    /**
+     * Lookups through the bucket table match a search of every piece, including short pieces bunched into one bucket
+     */
+    @Test
+    public void bucketLookupMatchesScan() {
+        Random random = new Random(3);
+        int pieceCount = 2001;
+
+        double[] starts = new double[pieceCount + 1];
+        double[] constants = new double[pieceCount];
+        double[] linears = new double[pieceCount];
+        double[] quadratics = new double[pieceCount];
+
+        for (int p = 0; p < pieceCount; p++) {
+            starts[p + 1] = starts[p] + (p < 1500 ? 1e-4 : 10) * (1 + random.nextDouble());
+            constants[p] = random.nextDouble();
+            linears[p] = random.nextDouble();
+            quadratics[p] = random.nextDouble();
+        }
+
+        SCurveVelocityProfile profile = new SCurveVelocityProfile(starts, constants, linears, quadratics);
+
+        for (int lookup = 0; lookup < 100000; lookup++) {
+            double distance = lookup % 2 == 0 ? random.nextDouble() * starts[pieceCount] : starts[random.nextInt(pieceCount)];
+
+            int piece = 0;
+            while (piece < pieceCount - 1 && starts[piece + 1] <= distance) {
+                piece++;
+            }
+            double x = distance - starts[piece];
+
+            assertEquals("Distance " + distance, constants[piece] + x * (linears[piece] + x * quadratics[piece]), profile.getVelocity(distance), 0);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.uacr.purepursuit.path.velocity;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SampledVelocityProfileTest {
+
+    /**
+     * A profile the samples can represent exactly, so any interpolation error is the sampled profile's
+     */
+    private static final VelocityProfile LINEAR = distance -> 2 + 0.5 * distance;
+
+    private static final double[] LENGTHS = {0, 0.4, 1, 10, 10.3, 10.75, 11 - 1e-12, 0.1 * 3};
+
+    @Test
+    public void lastSampleIsAtLength() {
+        for (double length : LENGTHS) {
+            SampledVelocityProfile profile = new SampledVelocityProfile(LINEAR, length, 1.0);
+            double[] velocities = profile.getVelocities();
+
+            assertEquals(length, profile.getLength(), 0);
+            assertEquals(LINEAR.getVelocity(length), velocities[velocities.length - 1], 0);
+            assertEquals(LINEAR.getVelocity(length), profile.getVelocity(length), 0);
+            assertEquals(LINEAR.getVelocity(length), profile.getVelocity(length + 5), 0);
+
+            // The sample before the last is always before the length
+            if (velocities.length > 1) {
+                assertTrue((velocities.length - 2) * profile.getResolution() < length);
+            }
+        }
+    }
+
+    @Test
+    public void interpolatesLastIntervalByItsWidth() {
+        for (double length : LENGTHS) {
+            SampledVelocityProfile profile = new SampledVelocityProfile(LINEAR, length, 1.0);
+
+            for (int step = 0; step <= 1000; step++) {
+                double distance = length * step / 1000;
+
+                assertEquals("Length " + length + " distance " + distance,
+                        LINEAR.getVelocity(distance), profile.getVelocity(distance), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void lengthFromSamples() {
+        SampledVelocityProfile profile = new SampledVelocityProfile(new double[]{1, 2, 3}, 0.5);
+
+        assertEquals(1, profile.getLength(), 0);
+        assertEquals(2.5, profile.getVelocity(0.75), 1e-12);
+        assertEquals(1, profile.getVelocity(-1), 0);
+        assertEquals(3, profile.getVelocity(2), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void lengthTooFarPastSamples() {
+        new SampledVelocityProfile(new double[]{1, 2, 3}, 0.5, 1.6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void lengthBeforeSecondToLastSample() {
+        new SampledVelocityProfile(new double[]{1, 2, 3}, 0.5, 0.4);
+    }
+}
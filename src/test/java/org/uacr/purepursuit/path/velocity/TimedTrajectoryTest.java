@@ -0,0 +1,109 @@
+package org.uacr.purepursuit.path.velocity;
+
+import org.junit.Test;
+import org.uacr.purepursuit.path.PathConstrains;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class TimedTrajectoryTest {
+
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * Every tick's distance maps back to the tick's time
+     */
+    private static void assertTicksRoundTrip(TimedTrajectory trajectory) {
+        int lastTick = trajectory.getTicks() - 1;
+
+        for (int tick = 0; tick < lastTick; tick++) {
+            assertEquals("Tick " + tick, tick * trajectory.getPeriod(), trajectory.getTimeAtDistance(trajectory.getDistance(tick)), EPSILON);
+            assertEquals("Tick " + tick, trajectory.getDistance(tick), trajectory.getDistanceAtTime(tick * trajectory.getPeriod()), EPSILON);
+        }
+
+        assertEquals(trajectory.getDuration(), trajectory.getTimeAtDistance(trajectory.getDistance(lastTick)), EPSILON);
+        assertEquals(trajectory.getLength(), trajectory.getDistance(lastTick), 0);
+        assertEquals(trajectory.getLength(), trajectory.getDistanceAtTime(trajectory.getDuration()), EPSILON);
+    }
+
+    /**
+     * At a constant velocity every tick moves the same distance except the last, which only takes part of a period
+     */
+    @Test
+    public void shortFinalTick() {
+        TimedTrajectory trajectory = new TimedTrajectory(distance -> 2, 10.5, 1);
+
+        assertEquals(7, trajectory.getTicks());
+        assertEquals(10, trajectory.getDistance(5), EPSILON);
+        assertEquals(10.5, trajectory.getDistance(6), 0);
+        assertEquals(10.5, trajectory.getDistance(100), 0);
+        assertEquals(5.25, trajectory.getDuration(), EPSILON);
+
+        // Half way through the quarter period last tick is half way through its distance
+        assertEquals(10.25, trajectory.getDistanceAtTime(5.125), EPSILON);
+        assertEquals(5.125, trajectory.getTimeAtDistance(10.25), EPSILON);
+        assertEquals(10.5, trajectory.getDistanceAtTime(7), 0);
+        assertEquals(0.25, trajectory.getTimeRemaining(10), EPSILON);
+
+        assertTicksRoundTrip(trajectory);
+    }
+
+    @Test
+    public void wholeFinalTick() {
+        TimedTrajectory trajectory = new TimedTrajectory(distance -> 2, 10, 0.5);
+
+        assertEquals(11, trajectory.getTicks());
+        assertEquals(5, trajectory.getDuration(), EPSILON);
+        assertTicksRoundTrip(trajectory);
+    }
+
+    /**
+     * A velocity that grows linearly with distance has the closed form s(t) = v0 / a * (e^(a t) - 1)
+     */
+    @Test
+    public void matchesClosedForm() {
+        double initialVelocity = 0.5;
+        double acceleration = 0.2;
+        double length = 100;
+
+        TimedTrajectory trajectory = new TimedTrajectory(distance -> initialVelocity + acceleration * distance, length, 0.02);
+
+        for (int tick = 0; tick < trajectory.getTicks() - 1; tick++) {
+            double time = tick * trajectory.getPeriod();
+            double expected = initialVelocity / acceleration * (Math.exp(acceleration * time) - 1);
+
+            assertEquals("Tick " + tick, expected, trajectory.getDistance(tick), 1e-6 * Math.max(1, expected));
+            assertEquals("Tick " + tick, initialVelocity + acceleration * expected, trajectory.getVelocity(tick), 1e-6 * Math.max(1, expected));
+        }
+
+        // The part of a period the last tick takes is interpolated linearly
+        double duration = Math.log(1 + length * acceleration / initialVelocity) / acceleration;
+        assertEquals(duration, trajectory.getDuration(), 1e-3 * trajectory.getPeriod());
+
+        assertTicksRoundTrip(trajectory);
+    }
+
+    @Test
+    public void trapezoidProfileRoundTrip() {
+        PathConstrains constrains = new PathConstrains();
+        Map<Double, Double> speedReductions = new HashMap<>();
+        speedReductions.put(120.0, 0.5);
+        double length = 250;
+
+        TimedTrajectory trajectory = new TimedTrajectory(new TrapezoidVelocityProfile(constrains, length, speedReductions), length, 0.02);
+
+        assertTicksRoundTrip(trajectory);
+
+        // The acceleration of the last tick is over the part of a period it takes
+        int lastTick = trajectory.getTicks() - 2;
+        double lastTickTime = trajectory.getDuration() - lastTick * trajectory.getPeriod();
+        assertEquals((trajectory.getVelocity(lastTick + 1) - trajectory.getVelocity(lastTick)) / lastTickTime, trajectory.getAcceleration(lastTick), 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void profileThatStops() {
+        new TimedTrajectory(distance -> distance < 5 ? 1 : 0, 10, 1);
+    }
+}
@@ -0,0 +1,214 @@
+package org.uacr.purepursuit.path.velocity;
+
+import org.junit.Test;
+import org.uacr.purepursuit.PathUtil;
+import org.uacr.purepursuit.math.Line;
+import org.uacr.purepursuit.math.Point;
+import org.uacr.purepursuit.math.Vector;
+import org.uacr.purepursuit.path.PathConstrains;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class TrapezoidVelocityProfileTest {
+
+    private static PathConstrains createConstraints() {
+        PathConstrains constrains = new PathConstrains();
+        constrains.maxVelocity = 1;
+        constrains.minVelocity = 0.1;
+        constrains.maxAcceleration = 0.01;
+        constrains.maxDeceleration = 0.02;
+        return constrains;
+    }
+
+    /**
+     * The profile lines the way the profile was built before it was built from stops,
+     * by intersecting the ramps of every speed reduction with the max velocity line and repairing the overlaps
+     */
+    private static List<Line> createReferenceLines(PathConstrains constrains, double length, Map<Double, Double> speedReductions) {
+        List<Line> velocityProfile = new ArrayList<>();
+
+        Line minVelocityLine = new Line(new Point(0, constrains.minVelocity), new Vector(length, 0));
+        Line maxVelocityLine = new Line(new Point(0, constrains.maxVelocity), new Vector(length, 0));
+
+        velocityProfile.add(new Line(minVelocityLine.initial(), new Line(minVelocityLine.initial(), minVelocityLine.initial().add(new Point(1, constrains.maxAcceleration))).intersection(maxVelocityLine)));
+
+        for (double reductionDistance : speedReductions.keySet().stream().sorted().collect(Collectors.toList())) {
+            Point speedReductionPoint = new Point(reductionDistance, PathUtil.interpolate(speedReductions.get(reductionDistance), 0, 1, constrains.maxVelocity, constrains.minVelocity));
+
+            velocityProfile.add(new Line(new Line(speedReductionPoint, speedReductionPoint.add(new Point(-1, constrains.maxDeceleration))).intersection(maxVelocityLine), speedReductionPoint));
+            velocityProfile.add(new Line(speedReductionPoint, new Line(speedReductionPoint, speedReductionPoint.add(new Point(1, constrains.maxAcceleration))).intersection(maxVelocityLine)));
+        }
+
+        velocityProfile.add(new Line(new Line(minVelocityLine.terminal(), minVelocityLine.terminal().add(new Point(-1, constrains.maxDeceleration))).intersection(maxVelocityLine), minVelocityLine.terminal()));
+
+        for (int l = 0; l < velocityProfile.size() - 1; l++) {
+            if (PathUtil.toleranceEquals(Math.abs(velocityProfile.get(l).slope()), 0, 0.00001)) {
+                continue;
+            }
+
+            while (true) {
+                Point nextLineIntersection = velocityProfile.get(l).intersection(velocityProfile.get(l + 1));
+
+                if (nextLineIntersection.getY() > constrains.maxVelocity + 0.0001) {
+                    velocityProfile.add(l + 1, new Line(velocityProfile.get(l).intersection(maxVelocityLine),
+                            velocityProfile.get(l + 1).intersection(maxVelocityLine)));
+                    break;
+                } else if (velocityProfile.get(l).slope() > 0.0) {
+                    if (velocityProfile.get(l + 1).isInSegment(nextLineIntersection)) {
+                        velocityProfile.set(l, new Line(velocityProfile.get(l).initial(), nextLineIntersection));
+                        velocityProfile.set(l + 1, new Line(nextLineIntersection, velocityProfile.get(l + 1).terminal()));
+                        break;
+                    }
+                    velocityProfile.remove(l + 1);
+                    velocityProfile.remove(l + 1);
+                } else {
+                    break;
+                }
+            }
+        }
+
+        return velocityProfile;
+    }
+
+    private static double getReferenceVelocity(List<Line> velocityProfile, double distance) {
+        for (Line line : velocityProfile) {
+            if (line.isInDomain(distance)) {
+                return line.evaluateX(distance).getY();
+            }
+        }
+        if (distance < velocityProfile.get(0).initial().getX()) {
+            return velocityProfile.get(0).initial().getY();
+        }
+
+        return velocityProfile.get(velocityProfile.size() - 1).terminal().getY();
+    }
+
+    /**
+     * The highest velocity that can slow down for every stop ahead and was reachable from every stop behind
+     */
+    private static double getEnvelopeVelocity(PathConstrains constrains, double length, Map<Double, Double> speedReductions, double distance) {
+        distance = PathUtil.limit(distance, 0, length);
+
+        Map<Double, Double> stops = new HashMap<>();
+        stops.put(0.0, constrains.minVelocity);
+        stops.put(length, constrains.minVelocity);
+        for (Map.Entry<Double, Double> speedReduction : speedReductions.entrySet()) {
+            stops.put(speedReduction.getKey(), PathUtil.interpolate(speedReduction.getValue(), 0, 1, constrains.maxVelocity, constrains.minVelocity));
+        }
+
+        double velocity = constrains.maxVelocity;
+
+        for (Map.Entry<Double, Double> stop : stops.entrySet()) {
+            double stopDistance = stop.getKey();
+            double rate = distance >= stopDistance ? constrains.maxAcceleration : constrains.maxDeceleration;
+
+            velocity = Math.min(velocity, stop.getValue() + rate * Math.abs(distance - stopDistance));
+        }
+
+        return velocity;
+    }
+
+    /**
+     * Speed reductions far enough apart that the robot gets back to the max velocity between them,
+     * where the old construction had nothing to repair
+     */
+    @Test
+    public void matchesReferenceWithoutOverlappingRamps() {
+        PathConstrains constrains = createConstraints();
+        Random random = new Random(1619);
+
+        for (int set = 0; set < 300; set++) {
+            // Slowing from or speeding up to the max velocity takes at most 90 + 45 inches
+            Map<Double, Double> speedReductions = new HashMap<>();
+            double distance = 0;
+            for (int r = random.nextInt(5); r > 0; r--) {
+                distance += 140 + random.nextDouble() * 200;
+                speedReductions.put(distance, 0.1 + random.nextDouble() * 0.9);
+            }
+            double length = distance + 140 + random.nextDouble() * 200;
+
+            TrapezoidVelocityProfile profile = new TrapezoidVelocityProfile(constrains, length, speedReductions);
+            List<Line> reference = createReferenceLines(constrains, length, speedReductions);
+
+            for (int step = -10; step <= 1010; step++) {
+                double d = length * step / 1000;
+
+                assertEquals("Set " + set + " distance " + d, getReferenceVelocity(reference, d), profile.getVelocity(d), 1e-9);
+            }
+        }
+    }
+
+    /**
+     * Two speed reductions whose ramps overlap, the old construction's repair removed the second reduction's ramps
+     * and left the robot at the max velocity through it. The profile is now the lowest envelope of every ramp.
+     */
+    @Test
+    public void overlappingRampsFollowEnvelope() {
+        PathConstrains constrains = createConstraints();
+        double length = 280;
+
+        Map<Double, Double> speedReductions = new HashMap<>();
+        // 0.46 at 40 and 0.28 at 130
+        speedReductions.put(40.0, 0.6);
+        speedReductions.put(130.0, 0.8);
+
+        TrapezoidVelocityProfile profile = new TrapezoidVelocityProfile(constrains, length, speedReductions);
+
+        for (int step = 0; step <= 2800; step++) {
+            double distance = step * 0.1;
+
+            assertEquals("Distance " + distance, getEnvelopeVelocity(constrains, length, speedReductions, distance), profile.getVelocity(distance), 1e-9);
+        }
+
+        assertEquals(0.46, profile.getVelocity(40), 1e-12);
+        assertEquals(0.76, profile.getVelocity(70), 1e-12);
+        assertEquals(1, profile.getVelocity(94), 1e-12);
+        assertEquals(0.28, profile.getVelocity(130), 1e-12);
+
+        assertEquals(1, getReferenceVelocity(createReferenceLines(constrains, length, speedReductions), 130), 1e-12);
+    }
+
+    /**
+     * Lookups that jump backwards and forwards leave the line hint on a line the next lookup isn't on
+     */
+    @Test
+    public void lastLineHintAfterNonMonotonicLookups() {
+        PathConstrains constrains = createConstraints();
+        Map<Double, Double> speedReductions = new HashMap<>();
+        speedReductions.put(200.0, 0.8);
+        speedReductions.put(500.0, 0.3);
+        double length = 800;
+
+        TrapezoidVelocityProfile profile = new TrapezoidVelocityProfile(constrains, length, speedReductions);
+        TrapezoidVelocityProfile fresh = new TrapezoidVelocityProfile(profile.getDistances(), profile.getVelocities(), profile.getSlopes());
+        Random random = new Random(7);
+
+        for (int lookup = 0; lookup < 20000; lookup++) {
+            double distance = random.nextDouble() * (length + 40) - 20;
+
+            // A new profile's hint is on the first line, so its lookup takes the search every time the hint misses
+            TrapezoidVelocityProfile expected = new TrapezoidVelocityProfile(fresh.getDistances(), fresh.getVelocities(), fresh.getSlopes());
+
+            assertEquals("Distance " + distance, expected.getVelocity(distance), profile.getVelocity(distance), 0);
+            assertEquals(getEnvelopeVelocity(constrains, length, speedReductions, distance), profile.getVelocity(distance), 1e-9);
+        }
+
+        // Backwards onto the line before the hint and forwards past the line after it
+        double[] distances = profile.getDistances();
+        for (int corner = distances.length - 2; corner >= 0; corner--) {
+            double middle = (distances[corner] + distances[corner + 1]) / 2;
+            assertEquals(getEnvelopeVelocity(constrains, length, speedReductions, middle), profile.getVelocity(middle), 1e-9);
+        }
+        for (int corner = 0; corner < distances.length - 1; corner += 2) {
+            double middle = (distances[corner] + distances[corner + 1]) / 2;
+            assertEquals(getEnvelopeVelocity(constrains, length, speedReductions, middle), profile.getVelocity(middle), 1e-9);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.uacr.purepursuit.telemetry;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TelemetryRecorderTest {
+
+    private static final String[] FIELD_NAMES = {"x", "y"};
+
+    /**
+     * Keeps every record in memory, throwing on one write when asked to
+     */
+    private static class MemorySink implements TelemetrySink {
+
+        private final List<Long> fTimestamps = new ArrayList<>();
+        private final List<double[]> fValues = new ArrayList<>();
+        private final int fFailingWrite;
+
+        private String[] mFieldNames = null;
+        private int mWrites = 0;
+        private boolean mIsClosed = false;
+
+        private MemorySink(int failingWrite) {
+            fFailingWrite = failingWrite;
+        }
+
+        private MemorySink() {
+            this(-1);
+        }
+
+        @Override
+        public void open(String[] fieldNames) {
+            mFieldNames = fieldNames;
+        }
+
+        @Override
+        public void write(long timestamp, double[] values, int offset, int length) throws IOException {
+            if (mWrites++ == fFailingWrite) {
+                throw new IOException("Test failure");
+            }
+
+            fTimestamps.add(timestamp);
+            fValues.add(Arrays.copyOfRange(values, offset, offset + length));
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+            mIsClosed = true;
+        }
+    }
+
+    private static void record(TelemetryRecorder recorder, long timestamp) {
+        if (recorder.beginRecord(timestamp)) {
+            recorder.set(0, timestamp);
+            recorder.set(1, -timestamp);
+            recorder.commitRecord();
+        }
+    }
+
+    @Test
+    public void closeDrainsEveryRecord() throws IOException {
+        MemorySink sink = new MemorySink();
+        TelemetryRecorder recorder = new TelemetryRecorder(FIELD_NAMES, 8, sink);
+
+        for (long timestamp = 0; timestamp < 5; timestamp++) {
+            record(recorder, timestamp);
+        }
+        assertEquals(5, recorder.getPendingRecords());
+
+        recorder.start();
+        assertArrayEquals(FIELD_NAMES, sink.mFieldNames);
+
+        recorder.close();
+
+        assertTrue(sink.mIsClosed);
+        assertEquals(0, recorder.getPendingRecords());
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L), sink.fTimestamps);
+
+        for (int r = 0; r < 5; r++) {
+            assertArrayEquals(new double[]{r, -r}, sink.fValues.get(r), 0);
+        }
+    }
+
+    @Test
+    public void sampleIntervalKeepsEveryNthRecord() throws IOException {
+        MemorySink sink = new MemorySink();
+        TelemetryRecorder recorder = new TelemetryRecorder(FIELD_NAMES, 16, sink);
+        recorder.setSampleInterval(3);
+
+        for (long timestamp = 0; timestamp < 10; timestamp++) {
+            record(recorder, timestamp);
+        }
+
+        recorder.start();
+        recorder.close();
+
+        assertEquals(Arrays.asList(0L, 3L, 6L, 9L), sink.fTimestamps);
+        assertEquals(0, recorder.getDroppedRecords());
+    }
+
+    @Test
+    public void fullBufferDropsRecords() throws IOException {
+        MemorySink sink = new MemorySink();
+        TelemetryRecorder recorder = new TelemetryRecorder(FIELD_NAMES, 4, sink);
+
+        for (long timestamp = 0; timestamp < 4; timestamp++) {
+            record(recorder, timestamp);
+        }
+        assertEquals(recorder.getCapacity(), recorder.getPendingRecords());
+
+        assertFalse(recorder.beginRecord(4));
+        assertFalse(recorder.beginRecord(5));
+        assertEquals(2, recorder.getDroppedRecords());
+        assertEquals(4, recorder.getPendingRecords());
+
+        recorder.start();
+        recorder.close();
+
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L), sink.fTimestamps);
+    }
+
+    @Test
+    public void failedWriteDropsRestOfBatch() throws IOException {
+        MemorySink sink = new MemorySink(2);
+        TelemetryRecorder recorder = new TelemetryRecorder(FIELD_NAMES, 8, sink);
+
+        for (long timestamp = 0; timestamp < 5; timestamp++) {
+            record(recorder, timestamp);
+        }
+
+        recorder.start();
+        recorder.close();
+
+        assertEquals(Arrays.asList(0L, 1L), sink.fTimestamps);
+        assertEquals(3, recorder.getDroppedRecords());
+        assertEquals(0, recorder.getPendingRecords());
+    }
+}